@@ -0,0 +1,60 @@
+package blockchain;
+
+import delay.VirtualClock;
+import signature.SignedBytes;
+import skipGraph.AsyncSkipNodeClient;
+
+import java.security.PublicKey;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Makes the calls of {@link LightChainRMIInterface} on a node without blocking
+ * the caller, see {@link AsyncSkipNodeClient}.
+ */
+public class AsyncLightChainClient extends AsyncSkipNodeClient {
+
+    private final LightChainRMIInterface node;
+
+    /**
+     * @param node the node calls are made on, a stub or a local node
+     */
+    public AsyncLightChainClient(LightChainRMIInterface node) {
+        this(node, ioExecutor(), VirtualClock.fork());
+    }
+
+    /**
+     * @param node     the node calls are made on, a stub or a local node
+     * @param executor the executor the calls run on
+     * @param fork     the fork the calls are timed on
+     */
+    public AsyncLightChainClient(LightChainRMIInterface node, Executor executor, VirtualClock.Fork fork) {
+        super(node, executor, fork);
+        this.node = node;
+    }
+
+    @Override
+    public LightChainRMIInterface getNode() {
+        return node;
+    }
+
+    public CompletableFuture<SignedBytes> povAsync(Transaction t) {
+        return call(() -> node.PoV(t));
+    }
+
+    public CompletableFuture<SignedBytes> povAsync(Block blk) {
+        return call(() -> node.PoV(blk));
+    }
+
+    public CompletableFuture<PublicKey> getPublicKeyAsync() {
+        return call(node::getPublicKey);
+    }
+
+    public CompletableFuture<Boolean> getModeAsync() {
+        return call(node::getMode);
+    }
+
+    public CompletableFuture<Integer> getTokenAsync() {
+        return call(node::getToken);
+    }
+}
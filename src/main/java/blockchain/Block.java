@@ -1,11 +1,15 @@
 package blockchain;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
 import hashing.Hasher;
 import hashing.HashingTools;
 import signature.SignedBytes;
+import skipGraph.NameID;
 import skipGraph.NodeInfo;
 import skipGraph.SkipNode;
 import util.Const;
@@ -13,32 +17,35 @@ import util.Const;
 public class Block extends NodeInfo {
 
 	private static final long serialVersionUID = 1L;
-	private final String prev;
-	private final int owner;
+	private static final byte WIRE_VERSION = 1;
+	private NameID prev;
+	private int owner;
 	private List<Transaction> transactionSet;
-	private final String hash;
+	private NameID hash;
 	private List<SignedBytes> sigma;
-	private Hasher hasher;
-	private final int index;
+	private int index;
 	private int levels;
 
+	public Block() {
+	}
+
 	/**
 	 * @param prev the address of the previous block
 	 * @param owner the address of the owner of the block
 	 */
-	public Block(String prev, int owner, String address, int idx,int levels) {
+	public Block(NameID prev, int owner, String address, int idx,int levels) {
 		super(address, 0, prev);
 		this.index = idx;
 		this.prev = prev;
 		this.owner = owner;
 		this.transactionSet = new ArrayList<>();
 		this.sigma = new ArrayList<>();
-		hasher = new HashingTools();
-		this.hash = hasher.getHash(prev + owner, levels);
-		super.setNumID(Integer.parseInt(this.hash, 2));
+		Hasher hasher = new HashingTools();
+		this.hash = hasher.getHashID(prev.toString() + owner, levels);
+		super.setNumID(this.hash.toInt());
 	}
 
-	public Block(String prev, int owner, String address, List<Transaction> tList, int idx, int levels) {
+	public Block(NameID prev, int owner, String address, List<Transaction> tList, int idx, int levels) {
 		super(address, 0, prev);
 		this.index = idx;
 		this.prev = prev;
@@ -46,14 +53,13 @@ public class Block extends NodeInfo {
 		this.transactionSet = tList;
 		this.levels = levels;
 		this.sigma = new ArrayList<>();
-		hasher = new HashingTools();
-		this.hash = hasher.getHash(prev + owner + getTransactionSetString(), levels);
-		super.setNumID(Integer.parseInt(this.hash, 2));
+		Hasher hasher = new HashingTools();
+		this.hash = hasher.getHashID(prev.toString() + owner + getTransactionSetString(), levels);
+		super.setNumID(this.hash.toInt());
 	}
 
 	public Block(Block blk) {
 		super(blk.getAddress(), blk.getNumID(), blk.getNameID());
-		hasher = new HashingTools();
 		this.index = blk.getIndex();
 		this.prev = blk.getPrev();
 		this.owner = blk.getOwner();
@@ -63,7 +69,7 @@ public class Block extends NodeInfo {
 		this.levels = blk.getLevels();
 	}
 
-	public String getPrev() {
+	public NameID getPrev() {
 		return prev;
 	}
 
@@ -75,7 +81,7 @@ public class Block extends NodeInfo {
 		return transactionSet;
 	}
 
-	public String getHash() {
+	public NameID getHash() {
 		return hash;
 	}
 
@@ -84,7 +90,10 @@ public class Block extends NodeInfo {
 	}
 
 	public void addSignature(SignedBytes signature) {
-		sigma.add(signature);
+		// validators still being sent the block may be writing its sigma
+		synchronized (sigma) {
+			sigma.add(signature);
+		}
 	}
 
 	public void addTransactions(List<Transaction> tList) {
@@ -101,7 +110,56 @@ public class Block extends NodeInfo {
 	
 	public String toString() {
 		
-		return prev + owner + getTransactionSetString();
+		return prev.toString() + owner + getTransactionSetString();
+	}
+
+	/**
+	 * Writes the node fields followed by the version of the block layout, the
+	 * packed prev and hash, the owner, the index, the levels, the length prefixed
+	 * transactions in their own layout and the length prefixed signatures.
+	 */
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		super.writeExternal(out);
+		out.writeByte(WIRE_VERSION);
+		NameID.write(out, prev);
+		NameID.write(out, hash);
+		out.writeInt(owner);
+		out.writeInt(index);
+		out.writeInt(levels);
+		if (transactionSet == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(transactionSet.size());
+			for (Transaction t : transactionSet)
+				t.writeExternal(out);
+		}
+		synchronized (sigma) {
+			SignedBytes.writeList(out, sigma);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		super.readExternal(in);
+		checkVersion(in, WIRE_VERSION, Block.class);
+		prev = NameID.read(in);
+		hash = NameID.read(in);
+		owner = in.readInt();
+		index = in.readInt();
+		levels = in.readInt();
+		int size = in.readInt();
+		if (size < 0) {
+			transactionSet = null;
+		} else {
+			transactionSet = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				Transaction t = new Transaction();
+				t.readExternal(in);
+				transactionSet.add(t);
+			}
+		}
+		sigma = SignedBytes.readList(in);
 	}
 
 	private String getTransactionSetString() {
@@ -1,33 +1,68 @@
 package blockchain;
 
-import java.rmi.Naming;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
 import java.security.PublicKey;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 import org.apache.log4j.Logger;
+import delay.DelayMode;
+import delay.LightChainNodeDelayWrapper;
+import delay.VirtualClock;
 import hashing.Hasher;
 import hashing.HashingTools;
 import remoteTest.TestingLog;
 import signature.DigitalSignature;
 import signature.SignedBytes;
 import simulation.SimLog;
+import skipGraph.AsyncSkipNodeClient;
+import skipGraph.NameID;
 import skipGraph.NodeConfig;
 import skipGraph.NodeInfo;
 import skipGraph.RMIInterface;
 import skipGraph.SkipNode;
+import transport.Transports;
 import util.Const;
+import util.ExpiringCache;
 import util.Util;
 
 public class LightChainNode extends SkipNode implements LightChainRMIInterface {
 
     private static final long serialVersionUID = 1L;
+    // number of hashes of a transaction or block tried before giving up on finding
+    // enough validators
+    private static final int MAX_VALIDATOR_CANDIDATES = 200;
+    // bounds of the cache of verified owner public keys; a numID is the hash of
+    // its public key, so a verified key never goes stale and does not expire
+    private static final int OWNER_KEY_CACHE_SIZE = 4096;
+    // numIDs whose key could not be verified are asked again after this long, as
+    // their owner may join the network in the meantime
+    private static final long OWNER_KEY_NEGATIVE_TTL_MILLIS = 10 * 1000;
+    // checks the transactions of blocks for all the nodes of the JVM; when it is
+    // busy the checks run on the thread of the PoV
+    private static final ExecutorService VERIFIER = new ThreadPoolExecutor(0,
+            Math.max(2, Runtime.getRuntime().availableProcessors()), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            Util.daemonThreadFactory("verifier"), new ThreadPoolExecutor.CallerRunsPolicy());
+    private final ExpiringCache<Integer, PublicKey> ownerKeys = new ExpiringCache<>(OWNER_KEY_CACHE_SIZE, 0);
+    private final ExpiringCache<Integer, Boolean> unverifiedOwners = new ExpiringCache<>(OWNER_KEY_CACHE_SIZE,
+            OWNER_KEY_NEGATIVE_TTL_MILLIS);
+    private final AtomicLong ownerKeyLookups = new AtomicLong();
+    private final AtomicLong ownerKeyRejections = new AtomicLong();
     private List<Transaction> transactions;
     private DigitalSignature digitalSignature;
     private Hasher hasher;
@@ -40,6 +75,8 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
     private Parameters params;
     private int token; // Is used to store the value of tokens owned by a node.
     private CorrectnessVerifier cv;
+    // number of parts the transactions of a block are checked in at the same time
+    private final int verifyParallelism;
     public int Tmode; // Defines the mode for every node eg. 1 -> consumer | 2 -> producer
 
     /**
@@ -52,7 +89,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      *                   and remove it from params
      */
     public LightChainNode(Parameters params, int RMIPort, String introducer, boolean isInitial) throws RemoteException {
-        super(RMIPort, params.getLevels(), introducer);
+        super(RMIPort, params.getLevels(), introducer, Transports.get(params.getTransport()));
         this.params = params;
         this.digitalSignature = new DigitalSignature();
         this.hasher = new HashingTools();
@@ -61,10 +98,14 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         this.mode = params.getMode();
         this.token = params.getInitialToken();
         this.logger = Logger.getLogger(RMIPort + "");
+        this.verifyParallelism = params.getVerifyParallelism() > 0 ? params.getVerifyParallelism()
+                : Runtime.getRuntime().availableProcessors();
         Tmode = (int) Math.round(Math.random());
-        String name = hasher.getHash(digitalSignature.getPublicKey().getEncoded(), params.getLevels());
-        super.setNumID(Integer.parseInt(name, 2));
-        name = hasher.getHash(name, params.getLevels());
+        setIterativeSearch(params.getIterativeSearch());
+        setDelayMode(DelayMode.parse(params.getDelay()));
+        NameID name = hasher.getHashID(digitalSignature.getPublicKey().getEncoded(), params.getLevels());
+        super.setNumID(name.toInt());
+        name = hasher.getHashID(name.toString(), params.getLevels());
         super.setNameID(name);
 
         if (isInitial)
@@ -74,12 +115,15 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         NodeInfo peer = new NodeInfo(address, numID, nameID);
         addPeerNode(peer);
 
-        Registry registry = LocateRegistry.createRegistry(RMIPort);
-        registry.rebind("RMIImpl", this);
-        logger.info("Rebinding Successful");
+        transport.export(this, RMIPort);
+        logger.info("Export Successful");
         if (!isInitial) {
             insertNode(peer);
         }
+        if (params.getStabilizePeriod() > 0)
+            startStabilizer(params.getStabilizePeriod());
+        if (params.getFailureDetector())
+            startFailureDetector(params.getHeartbeatPeriod());
 
         view.updateToken(getNumID(), this.token);
 
@@ -107,7 +151,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             // get the tail of blockchain
             Block blk = getLatestBlock();
             // change numID to nameID format to search for transactions
-            String name = numToName(blk.getNumID());
+            NameID name = numToName(blk.getNumID());
             // get transactions pointing at the tail
             List<Transaction> tList = getTransactionsWithNameID(name);
             if (tList == null)
@@ -137,7 +181,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      */
     public Block mineAttempt() throws RemoteException {
         try {
-            long startTotal = System.currentTimeMillis();
+            long startTotal = VirtualClock.currentTimeMillis();
 
             logger.debug("Attempting to mine");
 
@@ -150,7 +194,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
 
             logger.debug("Found Latest Block: " + blk.getNumID());
 
-            String name = numToName(blk.getNumID());
+            NameID name = numToName(blk.getNumID());
 
             logger.debug("getting transaction batch");
             // Get all transaction with this nameID
@@ -159,7 +203,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             // process
             if (tList == null || tList.size() < params.getTxMin()) {
                 logger.debug("Mining Failed: not enough transaction found: " + tList.size());
-                simLog.logMineAttemptLog(false, false, System.currentTimeMillis() - startTotal, -1);
+                simLog.logMineAttemptLog(false, false, VirtualClock.currentTimeMillis() - startTotal, -1);
                 return null;
             }
 
@@ -170,13 +214,13 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             // send the new block for PoV validation
             logger.debug("Validating new Block ...");
 
-            long startValid = System.currentTimeMillis();
+            long startValid = VirtualClock.currentTimeMillis();
             boolean isValidated = validateBlock(newBlk);
-            long endValid = System.currentTimeMillis();
+            long endValid = VirtualClock.currentTimeMillis();
             // TODO: find a way to avoid this null return
             if (!isValidated) {
                 logger.debug("Block validation failed");
-                simLog.logMineAttemptLog(true, false, System.currentTimeMillis() - startTotal, endValid - startValid);
+                simLog.logMineAttemptLog(true, false, VirtualClock.currentTimeMillis() - startTotal, endValid - startValid);
                 return null;
             }
 
@@ -185,7 +229,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             // insert new block after it was validated
             insertBlock(newBlk, blk.getAddress());
 
-            long endTotal = System.currentTimeMillis();
+            long endTotal = VirtualClock.currentTimeMillis();
             simLog.logMineAttemptLog(true, true, endTotal - startTotal, endValid - startValid);
 
             return newBlk;
@@ -278,11 +322,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      * inserts the first block to the blockchain
      */
     public Block insertGenesis() throws RemoteException {
-        StringBuilder st = new StringBuilder();
-        for (int i = 0; i < params.getLevels(); i++) {
-            st.append("0");
-        }
-        String prev = st.toString();
+        NameID prev = NameID.fromInt(0, params.getLevels());
         int index = 0;
         Block b = new Block(prev, getNumID(), getAddress(), index, params.getLevels());
         // use current address as prev when inserting genesis block
@@ -306,7 +346,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             NodeInfo flag = searchByNumID(Const.ZERO_ID);
 
             logger.debug("searching for block");
-            int num = Integer.parseInt(flag.getNameID(), 2);
+            int num = flag.getNameID().toInt();
             NodeInfo blk = searchByNumID(num);
             if (blk instanceof Block)
                 return (Block) blk;
@@ -353,7 +393,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      *             as nameID
      * @return a list of transactions that have name as nameID
      */
-    public List<Transaction> getTransactionsWithNameID(String name) {
+    public List<Transaction> getTransactionsWithNameID(NameID name) {
 
         List<NodeInfo> list = getNodesWithNameID(name);
         List<Transaction> tList = new ArrayList<>();
@@ -382,22 +422,47 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             List<NodeInfo> validators = getValidators(blk.toString());
 
             // add the owner's signature to the block
-            SignedBytes mySignature = digitalSignature.signString(blk.getHash());
+            SignedBytes mySignature = digitalSignature.signString(blk.getHash().toString());
 
             blk.addSignature(mySignature);
-            // iterate over validators and ask them to validate the block
-            for (int i = 0; i < validators.size(); ++i) {
-                LightChainRMIInterface node = getLightChainRMI(validators.get(i).getAddress());
-                // TODO: add a dummy signedBytes value
-                SignedBytes signature = node.PoV(blk);
-                // if one validator returns null, then validation has failed
-                if (signature == null) {
-                    logger.debug("Block Rejected");
-                    return false;
+            // ask all validators at once and collect their signatures as they arrive
+            BlockingQueue<PoVReply> replies = new LinkedBlockingQueue<>();
+            List<CompletableFuture<SignedBytes>> requests = requestPoV(validators, replies,
+                    validator -> () -> validator.PoV(blk));
+            List<SignedBytes> signatures = new ArrayList<>();
+            boolean quorum = params.getQuorumValidation();
+            int threshold = params.getSignaturesThreshold();
+            int numValidations = 0;
+            // with a quorum, too few validators can never reach the threshold
+            boolean rejected = quorum && validators.size() < threshold;
+            for (int i = 0; i < validators.size() && !rejected; ++i) {
+                // with a quorum, the block is approved by the first threshold signatures
+                if (quorum && numValidations >= threshold)
+                    break;
+                PoVReply reply = replies.take();
+                reply.join();
+                if (reply.signature != null)
+                    signatures.add(reply.signature);
+                if (quorum) {
+                    if (reply.signature != null && reply.signature.getBytes() != null)
+                        numValidations++;
+                    // give up as soon as the validators left cannot reach the threshold
+                    rejected = numValidations + validators.size() - i - 1 < threshold;
+                } else {
+                    // if one validator returns null or fails, then validation has failed
+                    rejected = reply.signature == null;
                 }
+            }
+            // the requests left are interrupted, and not waited for
+            for (CompletableFuture<SignedBytes> request : requests)
+                request.cancel(true);
+            // update the sigma array of the block with all the signatures gathered
+            for (SignedBytes signature : signatures)
                 blk.addSignature(signature);
+            if (rejected) {
+                logger.debug("Block Rejected");
+                return false;
             }
-            // update the sigma array of the block with all the signatures
             logger.debug("Block Approved");
 
             return true;
@@ -418,7 +483,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      */
     public boolean validateTransaction(Transaction t) throws RemoteException {
 
-        long start = System.currentTimeMillis();
+        long start = VirtualClock.currentTimeMillis();
 
         int isAuthenticated = 0;
         int isSound = 0;
@@ -431,7 +496,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             List<NodeInfo> validators = getValidators(t.toString());
 
             // add the owner's signature of the transaction's hash value to the sigma
-            SignedBytes mySignature = digitalSignature.signString(t.getHash());
+            SignedBytes mySignature = digitalSignature.signString(t.getHash().toString());
 
             t.addSignature(mySignature);
 
@@ -440,10 +505,26 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             long timePerValidator = 0;
 
 
-            // iterate over validators and use RMI to ask them to validate the transaction
+            // ask all validators at once and collect their signatures as they arrive
+            BlockingQueue<PoVReply> replies = new LinkedBlockingQueue<>();
+            List<CompletableFuture<SignedBytes>> requests = requestPoV(validators, replies,
+                    validator -> () -> validator.PoV(t));
+            List<SignedBytes> signatures = new ArrayList<>();
+            int threshold = params.getSignaturesThreshold();
             for (int i = 0; i < validators.size(); ++i) {
-                LightChainRMIInterface node = getLightChainRMI(validators.get(i).getAddress());
-                SignedBytes signature = node.PoV(t);
+                // with a quorum, stop once the outcome is known: the threshold is
+                // reached, or the validators left cannot reach it anymore
+                if (params.getQuorumValidation()
+                        && (numValidations >= threshold || numValidations + validators.size() - i < threshold))
+                    break;
+                PoVReply reply = replies.take();
+                reply.join();
+                SignedBytes signature = reply.signature;
+                if (signature == null) {
+                    // an unreachable validator does not sign, like one rejecting the transaction
+                    logger.debug("Validator " + reply.validator.getAddress() + " failed: " + reply.error);
+                    continue;
+                }
 
                 if (signature.isAuth())
                     isAuthenticated++;
@@ -460,11 +541,16 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
                     timePerValidator += signature.getValidationTime();
                 }
 
-                t.addSignature(signature);
+                signatures.add(signature);
             }
+            // the requests left are interrupted, and not waited for
+            for (CompletableFuture<SignedBytes> request : requests)
+                request.cancel(true);
+            for (SignedBytes signature : signatures)
+                t.addSignature(signature);
 
             validated = (numValidations >= params.getSignaturesThreshold());
-            long end = System.currentTimeMillis();
+            long end = VirtualClock.currentTimeMillis();
 
             if (numValidations != 0)
                 timePerValidator /= numValidations;
@@ -498,16 +584,13 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             boolean val = isAuth && isCons;
             if (val == false)
                 return new SignedBytes(null, isAuth, true, true, true);
-            // iterate over transactions and check them one by one
-            List<Transaction> ts = blk.getTransactionSet();
-            for (int i = 0; i < ts.size(); ++i) {
-                if (!isAuthenticated(ts.get(i)) /* || !isSound(ts.get(i)) */) {
-                    logger.debug("Transaction inside block is not authentic");
-                    return new SignedBytes(null, isAuth, true, true, true);
-                }
+            // check the transactions, in parallel unless verifyParallelism is 1
+            if (!areAuthenticated(blk.getTransactionSet())) {
+                logger.debug("Transaction inside block is not authentic");
+                return new SignedBytes(null, isAuth, true, true, true);
             }
             logger.debug("Block Approved");
-            SignedBytes signedHash = new SignedBytes(digitalSignature.signString(blk.getHash()).getBytes(), isAuth,
+            SignedBytes signedHash = new SignedBytes(digitalSignature.signString(blk.getHash().toString()).getBytes(), isAuth,
                     true, true, true);
             return signedHash;
         }
@@ -517,6 +600,60 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         }
     }
 
+    /**
+     * Checks the authenticity of the transactions of a block, splitting them in
+     * verifyParallelism parts checked at the same time over the shared verifier
+     * pool. Checking stops at the first transaction that is not authentic.
+     *
+     * @param ts the transactions to check
+     * @return true if all the transactions are authentic
+     */
+    private boolean areAuthenticated(List<Transaction> ts) throws Exception {
+        int parts = Math.min(verifyParallelism, ts.size());
+        if (parts < 2) {
+            for (Transaction t : ts) {
+                if (!isAuthenticated(t))
+                    return false;
+            }
+            return true;
+        }
+        AtomicBoolean failed = new AtomicBoolean();
+        // the lookups made by the checks are timed as parallel branches
+        VirtualClock.Fork fork = VirtualClock.fork();
+        try {
+            List<Future<?>> checks = new ArrayList<>();
+            for (int part = 1; part < parts; part++) {
+                List<Transaction> share = ts.subList(part * ts.size() / parts, (part + 1) * ts.size() / parts);
+                checks.add(VERIFIER.submit(fork.wrap(() -> areAuthenticated(share, failed))));
+            }
+            fork.wrap(() -> areAuthenticated(ts.subList(0, ts.size() / parts), failed)).call();
+            for (Future<?> check : checks)
+                check.get();
+        } finally {
+            fork.join();
+        }
+        return !failed.get();
+    }
+
+    /**
+     * Checks the given transactions until one of them is not authentic, or one
+     * checked in another part was not.
+     */
+    private Void areAuthenticated(List<Transaction> ts, AtomicBoolean failed) {
+        for (Transaction t : ts) {
+            if (failed.get())
+                return null;
+            try {
+                if (!isAuthenticated(t))
+                    failed.set(true);
+            } catch (Exception e) {
+                e.printStackTrace();
+                failed.set(true);
+            }
+        }
+        return null;
+    }
+
     /**
      * This method recieves a block and checks if: 1) its hash value is generated
      * properly 2) checks if it contains the signature of its owner
@@ -533,7 +670,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
                 sb.append(blk.getTransactionSet().get(i).toString());
             }
             // generate the hash value and then compare it with the block's
-            String hash = hasher.getHash(blk.getPrev() + blk.getOwner() + sb.toString(), params.getLevels());
+            NameID hash = hasher.getHashID(blk.getPrev().toString() + blk.getOwner() + sb.toString(), params.getLevels());
             if (!hash.equals(blk.getHash())) {
                 logger.debug("Hash of block not generated properly");
                 return false;
@@ -546,10 +683,8 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             if (ownerPublicKey == null)
                 return false;
             // iterate over the sigma array looking for the signature of the owner
-            for (int i = 0; i < blkSigma.size(); ++i) {
-                boolean is = digitalSignature.verifyString(hash, blkSigma.get(i), ownerPublicKey);
-                if (is)
-                    verified = true;
+            for (int i = 0; i < blkSigma.size() && !verified; ++i) {
+                verified = digitalSignature.verifyString(hash.toString(), blkSigma.get(i), ownerPublicKey);
             }
             if (verified == false) {
                 logger.debug("Block does not contain signature of owner");
@@ -589,6 +724,39 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         }
     }
 
+    /**
+     * Sends a PoV request to every validator at once, on the shared executor of
+     * the async clients, each bounded by the PoV timeout. A request that finds the
+     * executor saturated fails at once instead of being made by the calling thread.
+     * <p>
+     * Each request is timed on a fork of its own, which the caller joins when it
+     * takes the reply, so that the requests it cancels do not count. Cancelling a
+     * request interrupts the call, which aborts it on the NIO transport but not on
+     * RMI, where it runs on until the transport gives up.
+     *
+     * @param validators the validators to ask
+     * @param replies    receives the reply of each validator as it arrives
+     * @param request    makes the request to a validator
+     * @return the requests, which are cancelled once their replies are not needed
+     */
+    private List<CompletableFuture<SignedBytes>> requestPoV(List<NodeInfo> validators, BlockingQueue<PoVReply> replies,
+                                                            Function<LightChainRMIInterface, Callable<SignedBytes>> request) {
+        List<CompletableFuture<SignedBytes>> requests = new ArrayList<>();
+        for (NodeInfo validator : validators) {
+            LightChainRMIInterface node = getLightChainRMI(validator.getAddress());
+            if (node == null) {
+                replies.add(new PoVReply(validator, null, null, new RemoteException("Could not reach validator")));
+                continue;
+            }
+            VirtualClock.Fork fork = VirtualClock.fork();
+            CompletableFuture<SignedBytes> pov = AsyncSkipNodeClient.callWithTimeout(fork.wrap(request.apply(node)),
+                    params.getPovTimeout(), TimeUnit.MILLISECONDS);
+            pov.whenComplete((signature, error) -> replies.add(new PoVReply(validator, fork, signature, error)));
+            requests.add(pov);
+        }
+        return requests;
+    }
+
     /**
      * This method takes the hash of a transaction or a block and returns
      *
@@ -603,15 +771,24 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             Map<String, Integer> taken = new HashMap<>();
             int validFound = 0;
             taken.put(address, 1);// To not take the node itself or any data node belonging to it.
-            for (int i = 0; validFound < params.getAlpha() && i < 200; ++i) {
-                String hash = hasher.getHash(str + i, params.getLevels());
-                int num = Integer.parseInt(hash, 2);
-                NodeInfo node = searchByNumID(num);
-                if (taken.containsKey(node.getAddress()))
-                    continue;
-                taken.put(node.getAddress(), 1);
-                validators.add(node);
-                validFound++;
+            int i = 0;
+            while (validFound < params.getAlpha() && i < MAX_VALIDATOR_CANDIDATES) {
+                // search for as many candidates as validators are still missing in one batch
+                int[] nums = new int[Math.min(params.getAlpha() - validFound, MAX_VALIDATOR_CANDIDATES - i)];
+                for (int j = 0; j < nums.length; ++j)
+                    nums[j] = hasher.getHashID(str + (i + j), params.getLevels()).toInt();
+                NodeInfo[] nodes = searchByNumIDs(nums);
+                // candidates are taken in the same order as if they were searched one by one
+                for (int j = 0; j < nodes.length && validFound < params.getAlpha(); ++j) {
+                    NodeInfo node = nodes[j];
+                    // nodes suspected to have failed are passed over for the next candidates
+                    if (node == null || taken.containsKey(node.getAddress()) || isSuspected(node.getAddress()))
+                        continue;
+                    taken.put(node.getAddress(), 1);
+                    validators.add(node);
+                    validFound++;
+                }
+                i += nums.length;
             }
             return validators;
         }
@@ -637,7 +814,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         boolean isSound = false;
         boolean hasBalance = false;
         try {
-            long startTime = System.currentTimeMillis();
+            long startTime = VirtualClock.currentTimeMillis();
             updateView();
             isAuth = isAuthenticated(t);
             isCorrect = cv.isCorrect(t);
@@ -648,9 +825,9 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             if (val == false)
                 return new SignedBytes(null, isAuth, isSound, isCorrect, hasBalance);
             logger.debug("Transaction Approved");
-            SignedBytes signedHash = new SignedBytes(digitalSignature.signString(t.getHash()).getBytes(), isAuth,
+            SignedBytes signedHash = new SignedBytes(digitalSignature.signString(t.getHash().toString()).getBytes(), isAuth,
                     isSound, isCorrect, hasBalance);
-            long endTime = System.currentTimeMillis();
+            long endTime = VirtualClock.currentTimeMillis();
             signedHash.setValidationTime(endTime - startTime);
             return signedHash;
         }
@@ -672,7 +849,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
     public boolean isSound(Transaction t) {
         try {
 
-            int prev = Integer.parseInt(t.getPrev(), 2);
+            int prev = t.getPrev().toInt();
             // TODO: rethink this assumption
             // assuming that if a node is not in the view yet then this is the first
             // transaction;
@@ -725,7 +902,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         try {
 
             // generate the hash using the equation to check if it was generated correctly
-            String hash = hasher.getHash(t.getPrev() + t.getOwner() + t.getCont(), params.getLevels());
+            NameID hash = hasher.getHashID(t.getPrev().toString() + t.getOwner() + t.getCont(), params.getLevels());
             // return false if it was not generated properly
             if (!hash.equals(t.getHash())) {
                 logger.debug("Transaction hash value not generated properly");
@@ -738,12 +915,10 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
             boolean verified = false;
             if (ownerPublicKey == null)
                 return false;
-            for (int i = 0; i < tSigma.size(); ++i) {
+            for (int i = 0; i < tSigma.size() && !verified; ++i) {
                 // if we find one signature which belongs to the owner then we set verified to
-                // true
-                boolean is = digitalSignature.verifyString(hash, tSigma.get(i), ownerPublicKey);
-                if (is)
-                    verified = true;
+                // true, and the remaining signatures need not be checked
+                verified = digitalSignature.verifyString(hash.toString(), tSigma.get(i), ownerPublicKey);
             }
             if (verified == false) {
                 logger.debug("Transaction does not contain signature of owner");
@@ -768,7 +943,7 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      */
     public boolean hasBalanceCompliance(Transaction t) {
         try {
-            long start = System.currentTimeMillis();
+            long start = VirtualClock.currentTimeMillis();
 
             if (!view.hasBalanceEntry(t.getOwner())) {
                 view.updateBalance(t.getOwner(), params.getInitialBalance());
@@ -790,33 +965,54 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
      * the provided public key and comparing it with the given numID if the test
      * fails it prints it to console and return null. otherwise it returns the
      * public key of the owner.
+     * <p>
+     * Verified keys are cached, and so are numIDs whose key could not be verified,
+     * for a short while, so that the owners of the transactions of a block are
+     * mostly not searched for again.
      *
      * @param num numerical ID of node whose public key is to be retrieved
      * @return the public key of the node whose numerical ID was supplied
      */
     public PublicKey getOwnerPublicKey(int num) throws RemoteException {
+        PublicKey cached = ownerKeys.get(num);
+        if (cached != null)
+            return cached;
+        if (unverifiedOwners.get(num) != null) {
+            ownerKeyRejections.incrementAndGet();
+            return null;
+        }
+        ownerKeyLookups.incrementAndGet();
         try {
             // find owner from the network
             NodeInfo owner = searchByNumID(num);
+            // a search that failed is not cached either, as it may only be for now
+            if (owner == null)
+                return null;
 
             if (owner.getNumID() != num) {
                 logger.debug("no node was found with given numID");
                 logger.debug("Expected: " + num + ", Found: " + owner.getNumID());
+                unverifiedOwners.put(num, Boolean.TRUE);
                 return null;
             }
 
             // Contact the owner through RMI
             LightChainRMIInterface ownerRMI = getLightChainRMI(owner.getAddress());
+            // an owner that cannot be reached is not cached, as it may only be for now
+            if (ownerRMI == null)
+                return null;
             // get the owner'r Public key through RMI
             PublicKey pk = ownerRMI.getPublicKey();
             // Hash the public key and store the hash value as int
-            int hashedKey = Integer.parseInt(hasher.getHash(pk.getEncoded(), params.getLevels()), 2);
+            int hashedKey = hasher.getHashID(pk.getEncoded(), params.getLevels()).toInt();
             // if hashedKey is not equal to the provided numID, then there is a problem
             // and it is printed to the console
             if (hashedKey != num) {
                 logger.debug("given numID does not match with hash value of public key.");
+                unverifiedOwners.put(num, Boolean.TRUE);
                 return null;
             }
+            ownerKeys.put(num, pk);
             return pk;
         }
         catch (NumberFormatException e) {
@@ -825,21 +1021,45 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         }
     }
 
+    /**
+     * @return the number of owner public keys found in the cache of verified keys
+     */
+    public long getOwnerKeyHits() {
+        return ownerKeys.getHits();
+    }
+
+    /**
+     * @return the number of owner public keys looked up in the network
+     */
+    public long getOwnerKeyLookups() {
+        return ownerKeyLookups.get();
+    }
+
+    /**
+     * @return the number of owners rejected from the cache of keys that could not
+     * be verified, without a lookup
+     */
+    public long getOwnerKeyRejections() {
+        return ownerKeyRejections.get();
+    }
+
+    /**
+     * Delays the stubs of other LightChain nodes with the LightChain wrapper, so
+     * that they can still be used as LightChainRMIInterface.
+     */
+    @Override
+    protected RMIInterface delayed(RMIInterface stub, String adrs) {
+        if (stub instanceof LightChainRMIInterface)
+            return new LightChainNodeDelayWrapper((LightChainRMIInterface) stub, getAddress(), adrs,
+                    getDelayMode() == DelayMode.VIRTUAL);
+        return super.delayed(stub, adrs);
+    }
+
     public LightChainRMIInterface getLightChainRMI(String adrs) {
-        if (Util.validateIP(adrs)) {
-            if (adrs.equalsIgnoreCase(getAddress()))
-                return this;
-            try {
-                return (LightChainRMIInterface) Naming.lookup("//" + adrs + "/RMIImpl");
-            }
-            catch (Exception e) {
-                logger.error("Exception while attempting to lookup RMI located at address: " + adrs);
-                e.printStackTrace();
-            }
-        }
-        else {
-            logger.error("Error in looking up RMI. Address: " + adrs + " is not a valid address.");
-        }
+        RMIInterface rmi = getRMI(adrs);
+        if (rmi instanceof LightChainRMIInterface)
+            return (LightChainRMIInterface) rmi;
+        logger.error("Exception while attempting to lookup RMI located at address: " + adrs);
         return null;
     }
 
@@ -855,12 +1075,8 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
         return balance;
     }
 
-    public String numToName(int num) {
-        String name = Integer.toBinaryString(num);
-        while (name.length() < params.getLevels()) {
-            name = "0" + name;
-        }
-        return name;
+    public NameID numToName(int num) {
+        return NameID.fromInt(num, params.getLevels());
     }
 
     public boolean getMode() throws RemoteException {
@@ -902,4 +1118,31 @@ public class LightChainNode extends SkipNode implements LightChainRMIInterface {
     public int getToken() throws RemoteException {
         return token;
     }
+
+    /**
+     * The reply of a validator to a PoV request.
+     */
+    private static class PoVReply {
+        private final NodeInfo validator;
+        // the fork the request was timed on, null if it was not sent
+        private final VirtualClock.Fork fork;
+        // null if the validator failed or did not answer in time
+        private final SignedBytes signature;
+        private final Throwable error;
+
+        private PoVReply(NodeInfo validator, VirtualClock.Fork fork, SignedBytes signature, Throwable error) {
+            this.validator = validator;
+            this.fork = fork;
+            this.signature = signature;
+            this.error = error;
+        }
+
+        /**
+         * Moves the virtual clock of the calling thread past the request.
+         */
+        private void join() {
+            if (fork != null)
+                fork.join();
+        }
+    }
 }
\ No newline at end of file
@@ -14,6 +14,15 @@ public class Parameters {
 	private int Token = 20; // a token is a representation of any quantity of an asset which the node owns
 	private boolean Chain = true; // Mode of lightchain (false -> original || true -> Smartcontract)
 	public final boolean CONTRACT_MODE = true; // Alias name for True.
+	private boolean IterativeSearch = false; // searches driven hop by hop by the searching node
+	private String Transport = "rmi"; // medium nodes communicate through (rmi or nio)
+	private String Delay = "none"; // emulation of latency between nodes (none, real or virtual)
+	private int StabilizePeriod = 0; // milliseconds between rounds of link repair, 0 to disable
+	private boolean FailureDetector = false; // bounds remote calls by adaptive timeouts and routes around failed nodes
+	private int HeartbeatPeriod = 1000; // milliseconds between heartbeats to neighbors, 0 to disable
+	private int PovTimeout = 30000; // milliseconds a validator is given to answer a PoV request
+	private boolean QuorumValidation = false; // stop validating once signaturesThreshold is reached or out of reach
+	private int VerifyParallelism = 0; // parts the transactions of a block are checked in at once, 0 for one per processor
 	
 	public Parameters() {
 		
@@ -92,6 +101,78 @@ public class Parameters {
 		return Token;
 	}
 
+	public boolean getIterativeSearch() {
+		return IterativeSearch;
+	}
+
+	public void setIterativeSearch(boolean iterativeSearch) {
+		IterativeSearch = iterativeSearch;
+	}
+
+	public String getTransport() {
+		return Transport;
+	}
+
+	public void setTransport(String transport) {
+		Transport = transport;
+	}
+
+	public String getDelay() {
+		return Delay;
+	}
+
+	public void setDelay(String delay) {
+		Delay = delay;
+	}
+
+	public int getStabilizePeriod() {
+		return StabilizePeriod;
+	}
+
+	public void setStabilizePeriod(int stabilizePeriod) {
+		StabilizePeriod = stabilizePeriod;
+	}
+
+	public boolean getFailureDetector() {
+		return FailureDetector;
+	}
+
+	public void setFailureDetector(boolean failureDetector) {
+		FailureDetector = failureDetector;
+	}
+
+	public int getHeartbeatPeriod() {
+		return HeartbeatPeriod;
+	}
+
+	public void setHeartbeatPeriod(int heartbeatPeriod) {
+		HeartbeatPeriod = heartbeatPeriod;
+	}
+
+	public int getPovTimeout() {
+		return PovTimeout;
+	}
+
+	public void setPovTimeout(int povTimeout) {
+		PovTimeout = povTimeout;
+	}
+
+	public boolean getQuorumValidation() {
+		return QuorumValidation;
+	}
+
+	public void setQuorumValidation(boolean quorumValidation) {
+		QuorumValidation = quorumValidation;
+	}
+
+	public int getVerifyParallelism() {
+		return VerifyParallelism;
+	}
+
+	public void setVerifyParallelism(int verifyParallelism) {
+		VerifyParallelism = verifyParallelism;
+	}
+
 
 	@Override
 	public String toString() {
@@ -105,6 +186,15 @@ public class Parameters {
 				"\nMode= " + Mode +
 				"\nTokens= " + Token +
 				"\nContractMode= "+ Chain +
+				"\nIterativeSearch= " + IterativeSearch +
+				"\nTransport= " + Transport +
+				"\nDelay= " + Delay +
+				"\nStabilizePeriod= " + StabilizePeriod +
+				"\nFailureDetector= " + FailureDetector +
+				"\nHeartbeatPeriod= " + HeartbeatPeriod +
+				"\nPovTimeout= " + PovTimeout +
+				"\nQuorumValidation= " + QuorumValidation +
+				"\nVerifyParallelism= " + VerifyParallelism +
 				'\n';
 	}
 }
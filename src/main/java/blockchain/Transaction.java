@@ -1,11 +1,15 @@
 package blockchain;
 
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.List;
 
 import hashing.Hasher;
 import hashing.HashingTools;
 import signature.SignedBytes;
+import skipGraph.NameID;
 import skipGraph.NodeInfo;
 import skipGraph.SkipNode;
 import util.Const;
@@ -13,31 +17,33 @@ import util.Const;
 public class Transaction extends NodeInfo {
 
 	private static final long serialVersionUID = 1L;
-	private final String prev;
-	private final int owner;
-	private final String cont;// Use random string for this
-	private final String hash;// Hash
+	private static final byte WIRE_VERSION = 1;
+	private NameID prev;
+	private int owner;
+	private String cont;// Use random string for this
+	private NameID hash;// Hash
 	private List<SignedBytes> sigma;
-	private Hasher hasher;
 	private int levels;
 
+	public Transaction() {
+	}
+
 	// need to add address to transaction
 
-	public Transaction(String prev, int owner, String cont, String address, int levels) {
+	public Transaction(NameID prev, int owner, String cont, String address, int levels) {
 		super(address, 0, prev);
 		this.prev = prev;
 		this.owner = owner;
 		this.cont = cont;
 		this.levels = levels;
 		this.sigma = new ArrayList<>();
-		hasher = new HashingTools();
-		this.hash = hasher.getHash(prev + owner + cont, levels);
-		super.setNumID(Integer.parseInt(this.hash, 2));
+		Hasher hasher = new HashingTools();
+		this.hash = hasher.getHashID(prev.toString() + owner + cont, levels);
+		super.setNumID(this.hash.toInt());
 	}
 
 	public Transaction(Transaction t) {
 		super(t.getAddress(), t.getNumID(), t.getNameID());
-		hasher = new HashingTools();
 		this.prev = t.getPrev();
 		this.owner = t.getOwner();
 		this.cont = t.getCont();
@@ -50,7 +56,7 @@ public class Transaction extends NodeInfo {
 		return sigma;
 	}
 
-	public String getPrev() {
+	public NameID getPrev() {
 		return prev;
 	}
 
@@ -62,20 +68,54 @@ public class Transaction extends NodeInfo {
 		return cont;
 	}
 
-	public String getHash() {
+	public NameID getHash() {
 		return hash;
 	}
 
 	public void addSignature(SignedBytes signature) {
-		sigma.add(signature);
+		// validators still being sent the transaction may be writing its sigma
+		synchronized (sigma) {
+			sigma.add(signature);
+		}
 	}
 
 	public String toString() {
-		return prev + owner + cont;
+		return prev.toString() + owner + cont;
 	}
 	
 	public int getLevels() {
 		return levels;
 	}
 
+	/**
+	 * Writes the node fields followed by the version of the transaction layout, the
+	 * packed prev and hash, the owner, the content, the levels and the length
+	 * prefixed signatures.
+	 */
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		super.writeExternal(out);
+		out.writeByte(WIRE_VERSION);
+		NameID.write(out, prev);
+		NameID.write(out, hash);
+		out.writeInt(owner);
+		writeString(out, cont);
+		out.writeInt(levels);
+		synchronized (sigma) {
+			SignedBytes.writeList(out, sigma);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		super.readExternal(in);
+		checkVersion(in, WIRE_VERSION, Transaction.class);
+		prev = NameID.read(in);
+		hash = NameID.read(in);
+		owner = in.readInt();
+		cont = readString(in);
+		levels = in.readInt();
+		sigma = SignedBytes.readList(in);
+	}
+
 }
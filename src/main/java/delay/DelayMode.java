@@ -0,0 +1,20 @@
+package delay;
+
+/**
+ * How the latency between nodes is emulated on the calls a node makes.
+ */
+public enum DelayMode {
+    // calls are not delayed
+    NONE,
+    // the calling thread sleeps for the delay before every call
+    REAL,
+    // the delay is added to the virtual clock of the calling thread, see VirtualClock
+    VIRTUAL;
+
+    /**
+     * @param name the name of the mode, case insensitive
+     */
+    public static DelayMode parse(String name) {
+        return valueOf(name.trim().toUpperCase());
+    }
+}
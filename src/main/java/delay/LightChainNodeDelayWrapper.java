@@ -13,22 +13,19 @@ import java.security.PublicKey;
 
 public class LightChainNodeDelayWrapper extends SkipNodeDelayWrapper implements LightChainRMIInterface {
     private LightChainRMIInterface innerNode;
-    private int delay;
 
     public LightChainNodeDelayWrapper(LightChainRMIInterface innerNode, String senderAddress, String receiverAddress) {
-        super(innerNode, senderAddress, receiverAddress);
-        this.innerNode = innerNode;
-        delay = DelayTracker.getInstance().getDelay(senderAddress, receiverAddress);
+        this(innerNode, senderAddress, receiverAddress, false);
     }
 
-    // This method is executed before every method call to the innerNode
-    private void before(){
-        try{
-            if(delay>0)
-                Thread.sleep(delay);
-        }catch(Exception e){
-            e.printStackTrace();
-        }
+    /**
+     * @param virtual true to let the delay pass on the virtual clock instead of
+     *                sleeping
+     */
+    public LightChainNodeDelayWrapper(LightChainRMIInterface innerNode, String senderAddress, String receiverAddress,
+                                      boolean virtual) {
+        super(innerNode, senderAddress, receiverAddress, virtual);
+        this.innerNode = innerNode;
     }
 
     @Override
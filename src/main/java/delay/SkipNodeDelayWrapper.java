@@ -1,28 +1,53 @@
 package delay;
 
 import remoteTest.PingLog;
+import skipGraph.NameID;
+import skipGraph.NeighborRow;
 import skipGraph.NodeInfo;
 import skipGraph.RMIInterface;
+import skipGraph.SearchResult;
+import skipGraph.SearchStep;
 
 import java.io.FileNotFoundException;
 import java.rmi.RemoteException;
 import java.util.List;
 
+/**
+ * Delays every call made on a node by the latency between the caller and the
+ * node, drawn once per pair of addresses from the {@link DelayTracker}. The
+ * delay is either slept or, in virtual mode, added to the {@link VirtualClock}
+ * of the calling thread.
+ */
 public class SkipNodeDelayWrapper implements RMIInterface {
 
     private RMIInterface innerNode;
     private int delay;
+    private boolean virtual;
 
     public SkipNodeDelayWrapper(RMIInterface innerNode, String senderAddress, String receiverAddress){
+        this(innerNode, senderAddress, receiverAddress, false);
+    }
+
+    /**
+     * @param virtual true to let the delay pass on the virtual clock instead of
+     *                sleeping
+     */
+    public SkipNodeDelayWrapper(RMIInterface innerNode, String senderAddress, String receiverAddress, boolean virtual){
         this.innerNode = innerNode;
+        this.virtual = virtual;
         delay = DelayTracker.getInstance().getDelay(senderAddress, receiverAddress);
     }
 
     // This method is executed before every method call to the innerNode
-    private void before(){
+    protected void before(){
+        if(delay <= 0)
+            return;
+        if(virtual){
+            VirtualClock.advance(delay);
+            return;
+        }
         try{
-            if(delay>0)
-                Thread.sleep(delay);
+            Thread.sleep(delay);
         }catch(Exception e){
             e.printStackTrace();
         }
@@ -42,7 +67,7 @@ public class SkipNodeDelayWrapper implements RMIInterface {
     }
 
     @Override
-    public String getNameID() throws RemoteException {
+    public NameID getNameID() throws RemoteException {
         before();
         return innerNode.getNameID();
     }
@@ -54,13 +79,13 @@ public class SkipNodeDelayWrapper implements RMIInterface {
     }
 
     @Override
-    public String getLeftNameID(int level, int num) throws RemoteException {
+    public NameID getLeftNameID(int level, int num) throws RemoteException {
         before();
         return innerNode.getLeftNameID(level, num);
     }
 
     @Override
-    public String getRightNameID(int level, int num) throws RemoteException {
+    public NameID getRightNameID(int level, int num) throws RemoteException {
         before();
         return innerNode.getRightNameID(level,num);
     }
@@ -71,6 +96,12 @@ public class SkipNodeDelayWrapper implements RMIInterface {
         return innerNode.getNode(num);
     }
 
+    @Override
+    public NeighborRow getNeighbors(int num, int level) throws RemoteException {
+        before();
+        return innerNode.getNeighbors(num, level);
+    }
+
     @Override
     public int getNumID() throws RemoteException {
         before();
@@ -108,7 +139,7 @@ public class SkipNodeDelayWrapper implements RMIInterface {
     }
 
     @Override
-    public NodeInfo searchByNameID(String targetString) throws RemoteException {
+    public NodeInfo searchByNameID(NameID targetString) throws RemoteException {
         before();
         return innerNode.searchByNameID(targetString);
     }
@@ -132,13 +163,31 @@ public class SkipNodeDelayWrapper implements RMIInterface {
     }
 
     @Override
-    public NodeInfo searchName(int numID, String searchTarget, int level, int direction) throws RemoteException {
+    public SearchResult searchNumIDHops(int numID, int searchTarget, int level, int hops) throws RemoteException {
+        before();
+        return innerNode.searchNumIDHops(numID, searchTarget, level, hops);
+    }
+
+    @Override
+    public SearchStep searchNumIDStep(int numID, int searchTarget, int level) throws RemoteException {
+        before();
+        return innerNode.searchNumIDStep(numID, searchTarget, level);
+    }
+
+    @Override
+    public SearchStep[] searchNumIDSteps(int numID, int[] searchTargets, int level) throws RemoteException {
+        before();
+        return innerNode.searchNumIDSteps(numID, searchTargets, level);
+    }
+
+    @Override
+    public NodeInfo searchName(int numID, NameID searchTarget, int level, int direction) throws RemoteException {
         before();
         return innerNode.searchName(numID, searchTarget, level, direction);
     }
 
     @Override
-    public NodeInfo insertSearch(int level, int direction, int num, String target) throws RemoteException, FileNotFoundException {
+    public NodeInfo insertSearch(int level, int direction, int num, NameID target) throws RemoteException, FileNotFoundException {
         before();
         return innerNode.insertSearch(level, direction, num, target);
     }
@@ -0,0 +1,117 @@
+package delay;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock in which the latency of emulated calls passes logically instead of
+ * being slept. Every thread carries the amount of virtual delay its calls have
+ * run into, and {@link #currentTimeMillis()} is the wall clock shifted by that
+ * amount, so the time measured across an operation is its actual computation
+ * time plus the emulated latency on its path, without the thread ever waiting.
+ * <p>
+ * Delays follow the thread that makes the calls, which with an in-process
+ * transport also serves the nested calls, so the latency of a whole chain of
+ * calls adds up on the thread that started it. Work handed to other threads is
+ * accounted for with {@link #fork()}: branches start at the virtual time of the
+ * forking thread, and joining them moves that thread to the end of the slowest
+ * branch.
+ */
+public final class VirtualClock {
+
+    // virtual delay accumulated by the operations of each thread, in milliseconds
+    private static final ThreadLocal<long[]> elapsed = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final AtomicLong delayedCalls = new AtomicLong();
+    private static final AtomicLong totalDelay = new AtomicLong();
+
+    private VirtualClock() {
+    }
+
+    /**
+     * @return the wall clock time shifted by the virtual delay accumulated by the
+     * calling thread, in milliseconds
+     */
+    public static long currentTimeMillis() {
+        return System.currentTimeMillis() + elapsed();
+    }
+
+    /**
+     * @return the virtual delay accumulated by the calling thread, in milliseconds
+     */
+    public static long elapsed() {
+        return elapsed.get()[0];
+    }
+
+    /**
+     * Lets the given delay pass on the virtual clock of the calling thread, as
+     * the latency of one call.
+     */
+    public static void advance(long millis) {
+        elapsed.get()[0] += millis;
+        delayedCalls.incrementAndGet();
+        totalDelay.addAndGet(millis);
+    }
+
+    /**
+     * @return the number of calls whose latency was emulated on the virtual clock
+     */
+    public static long getDelayedCalls() {
+        return delayedCalls.get();
+    }
+
+    /**
+     * @return the sum of the latencies emulated on the virtual clock, in
+     * milliseconds
+     */
+    public static long getTotalDelay() {
+        return totalDelay.get();
+    }
+
+    /**
+     * Starts parallel branches of the operation of the calling thread.
+     */
+    public static Fork fork() {
+        return new Fork(elapsed());
+    }
+
+    /**
+     * Parallel branches of an operation, running on any threads.
+     */
+    public static final class Fork {
+        private final long start;
+        private final AtomicLong end;
+
+        private Fork(long start) {
+            this.start = start;
+            this.end = new AtomicLong(start);
+        }
+
+        /**
+         * @return a task running the given one at the virtual time of the fork,
+         * and recording the virtual time at which it finishes
+         */
+        public <T> Callable<T> wrap(Callable<T> task) {
+            return () -> {
+                long[] clock = elapsed.get();
+                long saved = clock[0];
+                clock[0] = start;
+                try {
+                    return task.call();
+                } finally {
+                    end.accumulateAndGet(clock[0], Math::max);
+                    clock[0] = saved;
+                }
+            };
+        }
+
+        /**
+         * Moves the virtual clock of the calling thread to the end of the slowest
+         * branch that has finished, if it is ahead of it.
+         */
+        public void join() {
+            long[] clock = elapsed.get();
+            clock[0] = Math.max(clock[0], end.get());
+        }
+    }
+}
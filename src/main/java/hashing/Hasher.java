@@ -1,8 +1,14 @@
 package hashing;
 
+import skipGraph.NameID;
+
 public interface Hasher {
 	public String getHash(String input, int neededSize);
 	public String getHash(byte[] input, int neededSize);
 	public String getHash(String input);
 	public String getHash(byte[] input);
+	public NameID getHashID(String input, int neededSize);
+	public NameID getHashID(byte[] input, int neededSize);
+	public byte[] getHashBytes(String input);
+	public byte[] getHashBytes(byte[] input);
 }
@@ -5,7 +5,29 @@ import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
+import skipGraph.NameID;
+
 public class HashingTools implements Hasher,Serializable {
+	
+	// looking up a digest is costly and a digest is not thread safe, so each
+	// thread keeps one, which is reset by every digest call
+	private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance("SHA-256"); //Using JAVA's built in SHA-256 implementation
+		} catch (NoSuchAlgorithmException e) {
+			System.out.println("Failed to get SHA-256 Hash Function.");
+			return null;
+		}
+	});
+	
+	// the eight binary digits of each byte value, most significant first
+	private static final char[][] BITS = new char[256][8];
+	static {
+		for (int b = 0; b < 256; b++)
+			for (int i = 0; i < 8; i++)
+				BITS[b][i] = (b & (0x80 >>> i)) == 0 ? '0' : '1';
+	}
+	
 	/*
 	 * SHA-256 Hashing function, will be used in the future for generating name IDs.
 	 */
@@ -26,6 +48,37 @@ public class HashingTools implements Hasher,Serializable {
 		return getHash(input).substring(0, neededSize);
 	}
 	
+	/*
+	 * Returns the first neededSize bits of the SHA-256 hash of the input as a nameID,
+	 * without going through the String form of the hash.
+	 */
+	public NameID getHashID(String input, int neededSize) {
+		return getHashID(input.getBytes(StandardCharsets.UTF_8), neededSize);
+	}
+	
+	public NameID getHashID(byte[] input, int neededSize) {
+		byte[] digest = digest(input);
+		if(digest == null)
+			return null;
+		if(neededSize>256 || neededSize<0) {
+			System.out.println("The input size to the getHashID function is out of bounds. Returning full hash.");
+			neededSize = 256;
+		}
+		return NameID.fromBytes(digest, neededSize);
+	}
+	
+	/*
+	 * Returns the SHA-256 hash of the input as raw bytes, for callers that do not
+	 * need its binary String form.
+	 */
+	public byte[] getHashBytes(String input) {
+		return getHashBytes(input.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	public byte[] getHashBytes(byte[] input) {
+		return digest(input);
+	}
+	
 	public String getHash(String input) { //Returns the SHA-256 hash of the input String
 		byte[] inputBytes = input.getBytes(StandardCharsets.UTF_8);
 		
@@ -33,27 +86,26 @@ public class HashingTools implements Hasher,Serializable {
 	}
 	
 	public String getHash(byte[] input) { //Returns the SHA-256 hash of the input array of bytes
-		MessageDigest dig; 
-		try {
-			dig = MessageDigest.getInstance("SHA-256"); //Using JAVA's built in SHA-256 implementation
-		} catch (NoSuchAlgorithmException e) {
-			System.out.println("Failed to get SHA-256 Hash Function.");
+		byte[] encodedhash = digest(input);
+		if(encodedhash == null)
 			return null;
-		}
-		byte[] encodedhash = dig.digest(input);
 		return bytesToBinary(encodedhash);
 	}
 	
+	private byte[] digest(byte[] input) {
+		MessageDigest dig = DIGESTS.get();
+		if(dig == null)
+			return null;
+		return dig.digest(input);
+	}
+	
 	private String bytesToBinary(byte[] hash) {//Converts an array of bytes to the corresponding binary representation.
-	    StringBuffer binString = new StringBuffer(); // To speed things up considering java String class being immutable.
-	    for (int i = 0; i < hash.length; i++) { 
-	    	
-	    	//Getting the binary representation of each byte and padding it from the left with zeroes to make it 8 bits
-	    	String bin = String.format("%8s", Integer.toBinaryString(((1<<8)-1) & hash[i])).replace(" ", "0"); 
-	    	
-	    	binString.append(bin);
-	    }
-	    return binString.toString();
+		char[] binString = new char[hash.length * 8];
+		for (int i = 0; i < hash.length; i++) {
+			//Copying the 8 bits of each byte from the table, padded from the left with zeroes
+			System.arraycopy(BITS[hash[i] & 0xFF], 0, binString, i * 8, 8);
+		}
+		return new String(binString);
 	}
 
 }
@@ -19,6 +19,7 @@ import blockchain.Block;
 import blockchain.LightChainRMIInterface;
 import blockchain.Transaction;
 import simulation.SimLog;
+import skipGraph.NameID;
 import skipGraph.NodeInfo;
 import skipGraph.RMIInterface;
 
@@ -29,7 +30,7 @@ public class RemoteAccessTool {
 	static ArrayList<NodeInfo> data;
 //	private static ArrayList<Transaction> transactions;
 	static NodeInfo[][][] lookup;
-	static String nameID;
+	static NameID nameID;
 	static int numID;
 	static boolean skipInit = false;
 	static LightChainRMIInterface node;
@@ -100,7 +101,7 @@ public class RemoteAccessTool {
 						}
 						NodeInfo result = null;
 						try {
-							result = node.searchByNameID(name);
+							result = node.searchByNameID(NameID.fromString(name));
 						} catch (RemoteException e) {
 							e.printStackTrace();
 							log("Remote Exception in query.");
@@ -30,6 +30,15 @@ public class DigitalSignature {
 	
 	private static String genAlgorithm = "RSA";
 	private static String signAlgorithm = "SHA256withRSA";
+	// looking up a signature engine is costly and an engine is not thread safe, so
+	// each thread keeps one, which initSign and initVerify reset for every use
+	private static final ThreadLocal<Signature> SIGNATURES = ThreadLocal.withInitial(() -> {
+		try {
+			return Signature.getInstance(signAlgorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Failed to get " + signAlgorithm + " signature engine", e);
+		}
+	});
 	
 	private PrivateKey privateKey;
 	private PublicKey publicKey;
@@ -158,9 +167,8 @@ public class DigitalSignature {
 	 */
 	public SignedBytes signString(String text) {
 		
-		Signature signature;
 		try {	
-			signature = Signature.getInstance(signAlgorithm);
+			Signature signature = SIGNATURES.get();
 			signature.initSign(privateKey);
 			byte[] data = text.getBytes("UTF-8");
 			signature.update(data);
@@ -208,12 +216,11 @@ public class DigitalSignature {
 	 */
 	public boolean verifyString(String data, SignedBytes signedData, PublicKey pKey) {
 			
-		Signature signature ;
+		if(signedData==null || signedData.getBytes()==null) return false;
 		try {
-			signature = Signature.getInstance(signAlgorithm);
+			Signature signature = SIGNATURES.get();
 			signature.initVerify(pKey);
 			signature.update(data.getBytes());
-			if(signedData==null || signedData.getBytes()==null) return false;
 			boolean verification = signature.verify(signedData.getBytes());
 			return verification;
 		}catch(Exception e) {
@@ -1,12 +1,19 @@
 package signature;
 
-import java.io.Serializable;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
 
 /*
  * A wrapper class for a resultant signed Byte array from the Digital Signature class
  */
-public class SignedBytes implements Serializable {
+public class SignedBytes implements Externalizable {
 	private static final long serialVersionUID = 1L;
+	private static final byte WIRE_VERSION = 1;
 
 	private byte[] array;
 
@@ -17,6 +24,9 @@ public class SignedBytes implements Serializable {
 	private boolean hasBalance;
 	private long validationTime;
 
+	public SignedBytes() {
+	}
+
 	public SignedBytes(byte[] array) {
 		if (array != null)
 			this.array = array.clone();
@@ -62,4 +72,71 @@ public class SignedBytes implements Serializable {
 		validationTime = time;
 	}
 
+	/**
+	 * Writes the signature as a version byte, one byte holding the four validation
+	 * results, the validation time and the length prefixed signed bytes.
+	 */
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeByte(WIRE_VERSION);
+		int flags = (isAuthenticated ? 1 : 0) | (isSound ? 2 : 0) | (isCorrect ? 4 : 0) | (hasBalance ? 8 : 0);
+		out.writeByte(flags);
+		out.writeLong(validationTime);
+		if (array == null) {
+			out.writeInt(-1);
+		} else {
+			out.writeInt(array.length);
+			out.write(array);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		byte version = in.readByte();
+		if (version != WIRE_VERSION)
+			throw new InvalidObjectException("Unsupported wire version " + version + " of SignedBytes");
+		int flags = in.readByte();
+		isAuthenticated = (flags & 1) != 0;
+		isSound = (flags & 2) != 0;
+		isCorrect = (flags & 4) != 0;
+		hasBalance = (flags & 8) != 0;
+		validationTime = in.readLong();
+		int len = in.readInt();
+		if (len < 0) {
+			array = null;
+		} else {
+			array = new byte[len];
+			in.readFully(array);
+		}
+	}
+
+	/**
+	 * Writes a list of signatures, which may be null, prefixed with its length.
+	 */
+	public static void writeList(ObjectOutput out, List<SignedBytes> list) throws IOException {
+		if (list == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(list.size());
+		for (SignedBytes signature : list)
+			signature.writeExternal(out);
+	}
+
+	/**
+	 * Reads a list of signatures written by {@link #writeList(ObjectOutput, List)}.
+	 */
+	public static List<SignedBytes> readList(ObjectInput in) throws IOException, ClassNotFoundException {
+		int size = in.readInt();
+		if (size < 0)
+			return null;
+		List<SignedBytes> list = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			SignedBytes signature = new SignedBytes();
+			signature.readExternal(in);
+			list.add(signature);
+		}
+		return list;
+	}
+
 }
@@ -2,8 +2,10 @@ package simulation;
 
 import blockchain.LightChainNode;
 import blockchain.Parameters;
-import skipGraph.LookupTable;
+import delay.VirtualClock;
 import skipGraph.NodeInfo;
+import skipGraph.Stabilizer;
+import transport.Transports;
 import util.Const;
 import util.Util;
 
@@ -25,9 +27,12 @@ public class Simulation {
 			ArrayList<LightChainNode> nodes = new ArrayList<>();
 			LightChainNode initialNode = null;
 			int numFailures;
+			// ports of in-process nodes are only identifiers, so they are handed out in order
+			boolean inProcess = Transports.get(params.getTransport()).isInProcess();
+			int nextPort = 1;
 			for(int i = 0 ; i < nodeCount ; i++){
 				try{
-					int port = rnd.nextInt(65535);
+					int port = inProcess ? nextPort++ : rnd.nextInt(65535);
 					LightChainNode node;
 					if(i == 0){
 						node = new LightChainNode(params, port, Const.DUMMY_INTRODUCER, true);
@@ -57,8 +62,41 @@ public class Simulation {
 			
 
 			long endTime = System.currentTimeMillis();
-			Util.log("the lock could not be obtained " + LookupTable.lockFailureCount + " times");
+			long contention = 0;
+			for (LightChainNode node : nodes)
+				contention += node.getLookupContentionCount();
+			Util.log("neighbor updates found an unexpected neighbor " + contention + " times");
+			long keyHits = 0, keyLookups = 0, keyRejections = 0;
+			for (LightChainNode node : nodes) {
+				keyHits += node.getOwnerKeyHits();
+				keyLookups += node.getOwnerKeyLookups();
+				keyRejections += node.getOwnerKeyRejections();
+			}
+			Util.log("owner public keys were found in the cache " + keyHits + " times, looked up " + keyLookups
+					+ " times, and rejected from the cache " + keyRejections + " times");
+			if (params.getStabilizePeriod() > 0) {
+				long asymmetric = 0, dangling = 0, failed = 0;
+				for (LightChainNode node : nodes) {
+					Stabilizer stabilizer = node.getStabilizer();
+					asymmetric += stabilizer.getAsymmetricRepairs();
+					dangling += stabilizer.getDanglingRepairs();
+					failed += stabilizer.getFailedRepairs();
+				}
+				Util.log("stabilization repaired " + asymmetric + " asymmetric and " + dangling
+						+ " dangling links, and failed to repair " + failed);
+			}
+			if (params.getFailureDetector()) {
+				long timeouts = 0, failures = 0;
+				for (LightChainNode node : nodes) {
+					timeouts += node.getFailureDetector().getTimeouts();
+					failures += node.getFailureDetector().getFailures();
+				}
+				Util.log(failures + " remote calls failed, " + timeouts + " of them after timing out");
+			}
 			Util.log("Simulation Done. Time Taken " +(endTime - startTime)+ " ms");
+			if (VirtualClock.getDelayedCalls() > 0)
+				Util.log(VirtualClock.getDelayedCalls() + " calls were delayed by " + VirtualClock.getTotalDelay()
+						+ " ms of virtual latency");
 			
 			processData(map, iterations);
 
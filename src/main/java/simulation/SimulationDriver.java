@@ -19,6 +19,15 @@ public class SimulationDriver {
         params.setMode(getBoolProperty("Mode", "True"));
         params.setInitialToken(getIntProperty("token", "20"));
         params.setChain(getBoolProperty("ContractMode", "True"));
+        params.setIterativeSearch(getBoolProperty("iterativeSearch", "False"));
+        params.setTransport(propMng.getProperty("transport", "rmi"));
+        params.setDelay(propMng.getProperty("delay", "none"));
+        params.setStabilizePeriod(getIntProperty("stabilizePeriod", "0"));
+        params.setFailureDetector(getBoolProperty("failureDetector", "False"));
+        params.setHeartbeatPeriod(getIntProperty("heartbeatPeriod", "1000"));
+        params.setPovTimeout(getIntProperty("povTimeout", "30000"));
+        params.setQuorumValidation(getBoolProperty("quorumValidation", "False"));
+        params.setVerifyParallelism(getIntProperty("verifyParallelism", "0"));
         int nodeCount = getIntProperty("nodeCount", "20");
         int iterations = getIntProperty("iterations", "50");
         int pace = getIntProperty("pace","1");
@@ -0,0 +1,50 @@
+package skipGraph;
+
+import delay.VirtualClock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Makes the calls of a local {@link SkipNode} without blocking the caller, see
+ * {@link AsyncSkipNodeClient}, including those that are not remote calls.
+ */
+public class AsyncLocalSkipNodeClient extends AsyncSkipNodeClient {
+
+    private final SkipNode node;
+
+    /**
+     * @param node the local node calls are made on
+     */
+    public AsyncLocalSkipNodeClient(SkipNode node) {
+        this(node, ioExecutor(), VirtualClock.fork());
+    }
+
+    /**
+     * @param node     the local node calls are made on
+     * @param executor the executor the calls run on
+     * @param fork     the fork the calls are timed on
+     */
+    public AsyncLocalSkipNodeClient(SkipNode node, Executor executor, VirtualClock.Fork fork) {
+        super(node, executor, fork);
+        this.node = node;
+    }
+
+    @Override
+    public SkipNode getNode() {
+        return node;
+    }
+
+    /**
+     * Inserts a data node through the node of this client.
+     *
+     * @param insertedNode the data node to insert
+     * @return a future completing when the data node is inserted
+     */
+    public CompletableFuture<Void> insertNodeAsync(NodeInfo insertedNode) {
+        return call(() -> {
+            node.insertNode(insertedNode);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,318 @@
+package skipGraph;
+
+import delay.VirtualClock;
+import util.Util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Makes the calls of {@link RMIInterface} on a node without blocking the
+ * caller. Every call runs on a bounded I/O executor and returns a
+ * {@link CompletableFuture}, so that fan-outs to many nodes and timeouts are
+ * composed from futures instead of a thread per outstanding call. A call
+ * failing with an exception completes its future exceptionally with that
+ * exception.
+ * <p>
+ * Calls are timed as branches of a {@link VirtualClock.Fork}: they start at the
+ * virtual time at which the client was created, and {@link #join()} moves the
+ * calling thread past the slowest of them. Clients of a fan-out may share one
+ * fork, which is then joined once.
+ */
+public class AsyncSkipNodeClient {
+
+    // shared by all clients, so the number of calls in flight stays bounded. The
+    // executor starts threads up to IO_MAX_THREADS before it queues calls, as calls
+    // may block on calls they make themselves; when the queue is full as well the
+    // caller makes the call itself, which slows it down, unless the call must stay
+    // bounded in time, in which case it is rejected
+    private static final int IO_THREADS = Math.max(4, 4 * Runtime.getRuntime().availableProcessors());
+    private static final int IO_MAX_THREADS = Math.max(IO_THREADS, 256);
+    private static final int IO_QUEUE = 1024;
+    private static final ExecutorService IO_EXECUTOR = newIOExecutor();
+    private static final ScheduledExecutorService TIMER = newTimer();
+
+    private final RMIInterface node;
+    private final Executor executor;
+    private final VirtualClock.Fork fork;
+
+    /**
+     * @param node the node calls are made on, a stub or a local node
+     */
+    public AsyncSkipNodeClient(RMIInterface node) {
+        this(node, IO_EXECUTOR, VirtualClock.fork());
+    }
+
+    /**
+     * @param node     the node calls are made on, a stub or a local node
+     * @param executor the executor the calls run on
+     * @param fork     the fork the calls are timed on
+     */
+    public AsyncSkipNodeClient(RMIInterface node, Executor executor, VirtualClock.Fork fork) {
+        this.node = node;
+        this.executor = executor;
+        this.fork = fork;
+    }
+
+    /**
+     * @return the shared executor clients make their calls on by default
+     */
+    public static Executor ioExecutor() {
+        return IO_EXECUTOR;
+    }
+
+    /**
+     * Returns a future completing like the given one, or failing with a
+     * {@link TimeoutException} if the given one does not complete in time.
+     * Cancelling the returned future, or its timing out, cancels the given one.
+     *
+     * @param future  the future to bound
+     * @param timeout the time to wait for the future
+     * @param unit    the unit of timeout
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> bounded.completeExceptionally(new TimeoutException()),
+                timeout, unit);
+        future.whenComplete((value, error) -> {
+            timer.cancel(false);
+            if (error != null)
+                bounded.completeExceptionally(error);
+            else
+                bounded.complete(value);
+        });
+        // a call given up or cancelled is not made if it has not started yet
+        bounded.whenComplete((value, error) -> {
+            if (error != null)
+                future.cancel(true);
+        });
+        return bounded;
+    }
+
+    /**
+     * Makes a call on the shared executor, bounded like {@link #withTimeout}. The
+     * call is never made by the calling thread: if the executor is saturated the
+     * returned future fails at once with a {@link RejectedExecutionException}.
+     * <p>
+     * Giving up the call, or cancelling the returned future, interrupts the thread
+     * making it. This aborts a call waiting on the NIO transport, but an RMI call
+     * blocked on its socket cannot be interrupted: it holds its thread until the
+     * transport gives up, and once every thread and queue slot is taken further
+     * calls are rejected rather than waited for.
+     *
+     * @param call    the call to make
+     * @param timeout the time to wait for the call
+     * @param unit    the unit of timeout
+     * @return the future result of the call
+     */
+    public static <T> CompletableFuture<T> callWithTimeout(Callable<T> call, long timeout, TimeUnit unit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        BoundedTask task = new BoundedTask(task(future, call));
+        future.whenComplete((value, error) -> {
+            if (error instanceof CancellationException)
+                task.interrupt();
+        });
+        try {
+            IO_EXECUTOR.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        return withTimeout(future, timeout, unit);
+    }
+
+    /**
+     * @return the node calls are made on
+     */
+    public RMIInterface getNode() {
+        return node;
+    }
+
+    /**
+     * Moves the virtual clock of the calling thread past the calls of this
+     * client that have completed.
+     */
+    public void join() {
+        fork.join();
+    }
+
+    /**
+     * Makes a call on the executor of this client. The call is skipped if its
+     * future is cancelled before the call starts.
+     *
+     * @param call the call to make
+     * @return the future result of the call
+     */
+    protected <T> CompletableFuture<T> call(Callable<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(task(future, fork.wrap(call)));
+        return future;
+    }
+
+    /**
+     * @return a task completing the future with the call, unless the future is
+     * done before the task starts
+     */
+    private static <T> Runnable task(CompletableFuture<T> future, Callable<T> call) {
+        return () -> {
+            if (future.isDone())
+                return;
+            try {
+                future.complete(call.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        };
+    }
+
+    public CompletableFuture<NodeInfo> searchByNumIDAsync(int targetNum) {
+        return call(() -> node.searchByNumID(targetNum));
+    }
+
+    public CompletableFuture<NodeInfo> searchByNameIDAsync(NameID targetName) {
+        return call(() -> node.searchByNameID(targetName));
+    }
+
+    public CompletableFuture<SearchStep> searchNumIDStepAsync(int numID, int searchTarget, int level) {
+        return call(() -> node.searchNumIDStep(numID, searchTarget, level));
+    }
+
+    public CompletableFuture<SearchStep[]> searchNumIDStepsAsync(int numID, int[] searchTargets, int level) {
+        return call(() -> node.searchNumIDSteps(numID, searchTargets, level));
+    }
+
+    public CompletableFuture<NodeInfo> insertSearchAsync(int level, int direction, int num, NameID target) {
+        return call(() -> node.insertSearch(level, direction, num, target));
+    }
+
+    public CompletableFuture<NodeInfo> getNodeAsync(int num) {
+        return call(() -> node.getNode(num));
+    }
+
+    public CompletableFuture<NeighborRow> getNeighborsAsync(int num, int level) {
+        return call(() -> node.getNeighbors(num, level));
+    }
+
+    public CompletableFuture<NodeInfo> getLeftNodeAsync(int level, int num) {
+        return call(() -> node.getLeftNode(level, num));
+    }
+
+    public CompletableFuture<NodeInfo> getRightNodeAsync(int level, int num) {
+        return call(() -> node.getRightNode(level, num));
+    }
+
+    public CompletableFuture<Boolean> setLeftNodeAsync(int num, int level, NodeInfo newNode, NodeInfo oldNode) {
+        return call(() -> node.setLeftNode(num, level, newNode, oldNode));
+    }
+
+    public CompletableFuture<Boolean> setRightNodeAsync(int num, int level, NodeInfo newNode, NodeInfo oldNode) {
+        return call(() -> node.setRightNode(num, level, newNode, oldNode));
+    }
+
+    public CompletableFuture<Integer> getNumIDAsync() {
+        return call(node::getNumID);
+    }
+
+    public CompletableFuture<NameID> getNameIDAsync() {
+        return call(node::getNameID);
+    }
+
+    public CompletableFuture<Boolean> pingAsync() {
+        return call(node::ping);
+    }
+
+    private static ExecutorService newIOExecutor() {
+        HandOffQueue queue = new HandOffQueue();
+        RejectedExecutionHandler saturated = (task, executor) -> {
+            if (executor.isShutdown())
+                return;
+            if (queue.size() < IO_QUEUE && queue.enqueue(task))
+                return;
+            if (task instanceof BoundedTask)
+                throw new RejectedExecutionException("Too many calls in flight");
+            task.run();
+        };
+        return new ThreadPoolExecutor(IO_THREADS, IO_MAX_THREADS, 60, TimeUnit.SECONDS, queue,
+                Util.daemonThreadFactory("skip-node-io"), saturated);
+    }
+
+    /**
+     * The work queue of the I/O executor. It hands a call to an idle thread if
+     * there is one, and otherwise refuses it so that the executor starts a new
+     * thread. Calls are only queued once the executor runs all its threads.
+     */
+    private static final class HandOffQueue extends LinkedTransferQueue<Runnable> {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public boolean offer(Runnable task) {
+            return tryTransfer(task);
+        }
+
+        private boolean enqueue(Runnable task) {
+            return super.offer(task);
+        }
+    }
+
+    /**
+     * A task that is rejected rather than run by the caller when the executor is
+     * saturated, and that can be interrupted while it runs.
+     */
+    private static final class BoundedTask implements Runnable {
+        private final Runnable task;
+        // the thread running the task, and whether the task is over or given up
+        private Thread runner;
+        private boolean done;
+
+        private BoundedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (done)
+                    return;
+                runner = Thread.currentThread();
+            }
+            try {
+                task.run();
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    done = true;
+                }
+                // an interrupt meant for the task does not reach the next one
+                Thread.interrupted();
+            }
+        }
+
+        /**
+         * Interrupts the thread running the task, or keeps the task from starting.
+         */
+        private synchronized void interrupt() {
+            done = true;
+            if (runner != null)
+                runner.interrupt();
+        }
+    }
+
+    private static ScheduledExecutorService newTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1,
+                Util.daemonThreadFactory("skip-node-timeout"));
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+}
@@ -0,0 +1,365 @@
+package skipGraph;
+
+import org.apache.log4j.Logger;
+import transport.Transports;
+import util.Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A phi-accrual failure detector over the nodes a skip node calls. Every reply
+ * from a node, to a heartbeat or to a normal call, is a sign of life: the
+ * detector learns the mean and deviation of the time between them, and the
+ * suspicion level phi of a node grows the longer it stays silent compared to
+ * that history. A node is suspected while it is pinged by heartbeats and its
+ * phi is above a threshold, or for a while after a call to it failed.
+ * <p>
+ * Stubs wrapped by {@link #monitor(String, RMIInterface)} feed the detector and
+ * bound their calls with a per-node timeout, derived like the retransmission
+ * timeout of TCP from a moving average of the round trip times of that node and
+ * call. Calls that search or forward to other nodes (recursive searches,
+ * insertion searches, deletions, validations, simulations) take as long as
+ * their whole route, so they feed the detector but are not bounded. Bounded calls run on the shared executor of
+ * {@link AsyncSkipNodeClient}, and fail rather than run unbounded when it is
+ * saturated.
+ */
+public class FailureDetector {
+
+    // phi above which a node is suspected
+    public static final double DEFAULT_PHI_THRESHOLD = 8.0;
+    // timeout of calls to a node before any round trip time was learned
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10000;
+    // bounds of the adaptive timeouts
+    private static final long MIN_TIMEOUT_MILLIS = 500;
+    private static final long MAX_TIMEOUT_MILLIS = 30000;
+    // how long a node stays suspected after a failed call, before it is tried again
+    private static final long FAILURE_SUSPICION_MILLIS = 10000;
+    // lower bound of the deviation of the time between replies, so that very
+    // regular replies do not make phi jump on the first late one
+    private static final double MIN_STD_DEV_MILLIS = 100;
+    // number of intervals between replies needed before phi is trusted
+    private static final int MIN_SAMPLES = 3;
+    // weight of a new sample in the moving averages
+    private static final double ALPHA = 0.125;
+
+    // calls that search or forward to other nodes, whose duration is that of a
+    // whole route; a validation is bounded by the PoV timeout of its caller instead
+    private static final Set<String> ROUTED_CALLS = new HashSet<>(Arrays.asList("searchByNumID", "searchByNameID",
+            "searchByNumIDHelper", "searchNumIDHops", "searchNumID", "searchName", "insertSearch", "delete",
+            "pingStart", "retroPingStart", "startSim", "insertGenesis", "shutDown", "PoV", "removeFlagNode"));
+
+    private static final ScheduledExecutorService HEARTBEATS = newHeartbeatScheduler();
+
+    private final double phiThreshold;
+    private final Map<String, Peer> peers = new ConcurrentHashMap<>();
+    private final Logger logger = Logger.getLogger(FailureDetector.class);
+
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private ScheduledFuture<?> heartbeat;
+
+    public FailureDetector() {
+        this(DEFAULT_PHI_THRESHOLD);
+    }
+
+    /**
+     * @param phiThreshold phi above which a node is suspected
+     */
+    public FailureDetector(double phiThreshold) {
+        this.phiThreshold = phiThreshold;
+    }
+
+    /**
+     * Records a reply of the node at the given address.
+     *
+     * @param adrs     address of the node
+     * @param call     name of the call that was answered
+     * @param rttNanos round trip time of the call
+     * @param countRtt true if the round trip time is that of the node alone
+     */
+    public void onReply(String adrs, String call, long rttNanos, boolean countRtt) {
+        peer(adrs).onReply(call, rttNanos, countRtt);
+    }
+
+    /**
+     * Records a call to the node at the given address that failed remotely or
+     * timed out.
+     */
+    public void onFailure(String adrs) {
+        failures.incrementAndGet();
+        peer(adrs).onFailure();
+    }
+
+    /**
+     * @return the suspicion level of the node at the given address, 0 if too
+     * little is known about it
+     */
+    public double phi(String adrs) {
+        Peer peer = peers.get(adrs);
+        return peer == null ? 0 : peer.phi(System.nanoTime());
+    }
+
+    /**
+     * @return true if the node at the given address is suspected to have failed
+     */
+    public boolean isSuspected(String adrs) {
+        Peer peer = peers.get(adrs);
+        return peer != null && peer.isSuspected(System.nanoTime());
+    }
+
+    /**
+     * @param adrs address of the node
+     * @param call name of the call
+     * @return the time calls of the given kind to the given node may take
+     */
+    public long timeoutMillis(String adrs, String call) {
+        Peer peer = peers.get(adrs);
+        return peer == null ? DEFAULT_TIMEOUT_MILLIS : peer.timeoutMillis(call);
+    }
+
+    /**
+     * @return the number of calls that were given up after their timeout
+     */
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the number of calls that failed remotely or timed out
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * Pings the given nodes every period, so that their phi reflects how recently
+     * they replied even when no other call is made to them. Does nothing if
+     * heartbeats were already started.
+     *
+     * @param periodMillis time between two rounds of heartbeats
+     * @param addresses    the addresses to ping in a round
+     * @param stubs        looks up the monitored stub of an address
+     */
+    public synchronized void startHeartbeats(long periodMillis, Supplier<Collection<String>> addresses,
+                                             Function<String, RMIInterface> stubs) {
+        if (heartbeat != null)
+            return;
+        heartbeat = HEARTBEATS.scheduleWithFixedDelay(() -> {
+            Set<String> round = new HashSet<>(addresses.get());
+            for (Map.Entry<String, Peer> entry : peers.entrySet())
+                entry.getValue().setHeartbeat(round.contains(entry.getKey()));
+            for (String adrs : round) {
+                peer(adrs).setHeartbeat(true);
+                try {
+                    RMIInterface stub = stubs.apply(adrs);
+                    if (stub == null)
+                        onFailure(adrs);
+                    else
+                        stub.ping();
+                } catch (RemoteException e) {
+                    // recorded by the monitored stub
+                } catch (RuntimeException e) {
+                    logger.debug("Heartbeat to " + adrs + " failed", e);
+                }
+            }
+        }, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the heartbeats, if they were started.
+     */
+    public synchronized void stopHeartbeats() {
+        if (heartbeat != null) {
+            heartbeat.cancel(false);
+            heartbeat = null;
+        }
+    }
+
+    /**
+     * Wraps a stub into a proxy implementing the same remote interfaces, which
+     * reports its calls to this detector and gives them up with a
+     * {@link RemoteException} after the timeout of the node.
+     *
+     * @param adrs address of the node of the stub
+     * @param stub the stub
+     * @return the monitored stub
+     */
+    public RMIInterface monitor(String adrs, RMIInterface stub) {
+        Class<?>[] interfaces = Transports.remoteInterfaces(stub.getClass());
+        return (RMIInterface) Proxy.newProxyInstance(RMIInterface.class.getClassLoader(), interfaces,
+                new MonitoringHandler(adrs, stub));
+    }
+
+    private Peer peer(String adrs) {
+        return peers.computeIfAbsent(adrs, k -> new Peer());
+    }
+
+    private class MonitoringHandler implements InvocationHandler {
+        private final String adrs;
+        private final Remote stub;
+
+        private MonitoringHandler(String adrs, Remote stub) {
+            this.adrs = adrs;
+            this.stub = stub;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class)
+                return method.invoke(stub, args);
+            String call = method.getName();
+            boolean routed = ROUTED_CALLS.contains(call);
+            long start = System.nanoTime();
+            try {
+                Object result;
+                if (routed) {
+                    result = method.invoke(stub, args);
+                } else {
+                    long timeout = timeoutMillis(adrs, call);
+                    CompletableFuture<Object> future = AsyncSkipNodeClient.callWithTimeout(
+                            () -> method.invoke(stub, args), timeout, TimeUnit.MILLISECONDS);
+                    try {
+                        result = future.get();
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof TimeoutException) {
+                            timeouts.incrementAndGet();
+                            onFailure(adrs);
+                            throw new RemoteException("Call " + call + " to " + adrs + " timed out after " + timeout
+                                    + " ms");
+                        }
+                        // the calls in flight are bounded, so a saturated executor fails
+                        // the call instead of making it without a timeout
+                        if (cause instanceof RejectedExecutionException)
+                            throw new RemoteException("Call " + call + " to " + adrs + " was rejected", cause);
+                        throw cause;
+                    }
+                }
+                onReply(adrs, call, System.nanoTime() - start, !routed);
+                return result;
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                // a ServerException is thrown by the node itself, which is alive
+                if (cause instanceof RemoteException && !(cause instanceof ServerException))
+                    onFailure(adrs);
+                else
+                    onReply(adrs, call, System.nanoTime() - start, false);
+                throw cause;
+            }
+        }
+    }
+
+    /**
+     * What the detector knows of one node.
+     */
+    private class Peer {
+        // time of the last reply, or 0 before the first one
+        private long lastReply;
+        private int samples;
+        private double intervalMean;
+        private double intervalVar;
+        // time of the last failed call, and whether no reply came after it
+        private long lastFailure;
+        private boolean failed;
+        // true while the node is pinged by heartbeats; the silence of other nodes
+        // only means they were not called
+        private boolean heartbeat;
+        // smoothed round trip time and its deviation per call, in milliseconds
+        private final Map<String, double[]> rtts = new HashMap<>();
+
+        synchronized void setHeartbeat(boolean heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+
+        synchronized void onReply(String call, long rttNanos, boolean countRtt) {
+            long now = System.nanoTime();
+            if (lastReply != 0) {
+                double interval = (now - lastReply) / 1e6;
+                if (samples == 0) {
+                    intervalMean = interval;
+                    intervalVar = interval * interval / 4;
+                } else {
+                    double diff = interval - intervalMean;
+                    intervalMean += ALPHA * diff;
+                    intervalVar = (1 - ALPHA) * (intervalVar + ALPHA * diff * diff);
+                }
+                samples++;
+            }
+            lastReply = now;
+            failed = false;
+            if (countRtt) {
+                double rtt = rttNanos / 1e6;
+                double[] est = rtts.get(call);
+                if (est == null) {
+                    rtts.put(call, new double[] { rtt, rtt / 2 });
+                } else {
+                    est[1] = (1 - ALPHA / 2) * est[1] + ALPHA / 2 * Math.abs(est[0] - rtt);
+                    est[0] = (1 - ALPHA) * est[0] + ALPHA * rtt;
+                }
+            }
+        }
+
+        synchronized void onFailure() {
+            lastFailure = System.nanoTime();
+            failed = true;
+        }
+
+        synchronized double phi(long now) {
+            if (samples < MIN_SAMPLES || lastReply == 0)
+                return 0;
+            double silence = (now - lastReply) / 1e6;
+            double stdDev = Math.max(Math.sqrt(intervalVar), MIN_STD_DEV_MILLIS);
+            // logistic approximation of the cumulative normal distribution
+            double y = (silence - intervalMean) / stdDev;
+            double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+            if (silence > intervalMean)
+                return -Math.log10(e / (1.0 + e));
+            return -Math.log10(1.0 - 1.0 / (1.0 + e));
+        }
+
+        synchronized boolean isSuspected(long now) {
+            if (failed && now - lastFailure < TimeUnit.MILLISECONDS.toNanos(FAILURE_SUSPICION_MILLIS))
+                return true;
+            return heartbeat && phi(now) > phiThreshold;
+        }
+
+        synchronized long timeoutMillis(String call) {
+            double[] est = rtts.get(call);
+            if (est == null)
+                return DEFAULT_TIMEOUT_MILLIS;
+            long timeout = (long) Math.ceil(est[0] + 4 * est[1]);
+            return Math.min(MAX_TIMEOUT_MILLIS, Math.max(MIN_TIMEOUT_MILLIS, timeout));
+        }
+    }
+
+    private static ScheduledExecutorService newHeartbeatScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), Util.daemonThreadFactory("heartbeat"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
@@ -5,10 +5,10 @@ import util.Util;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * @author Shadi Hamdan
@@ -17,18 +17,28 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class LookupTable {
     private int maxLevels;
     private Map<Integer, NodeInfo> dataNodes;
+    // sorted numIDs of the data nodes, used to find the closest data node quickly.
+    // A numID is indexed after its data node is added and unindexed before it is
+    // removed, so that every indexed numID has a data node
+    private SortedIntSet dataIndex;
+    // held by the writers of the data nodes and their indexes, which readers read
+    // without locking
+    private final Object dataLock = new Object();
+    private NameIDTrie nameIndex;
     private Map<Integer, Table> lookup;
 
-    public static int lockFailureCount = 0;
+    // number of neighbor updates that found a neighbor other than the expected one
+    private final AtomicLong contentionCount;
 
     /*
      * The buffer is there so we can finalize a node's table and insertion before we
      * add it to the other nodes. This prevents any access to it during search etc.
      * So it is basically to prevent access to the node's lookup table until it is
-     * fully inserted.
+     * fully inserted. Several nodes may be buffered at once when they are inserted
+     * as a batch.
      */
-    private NodeInfo nodeBuffer;
-    private Table tableBuffer;
+    private final Map<Integer, NodeInfo> nodeBuffer = new ConcurrentHashMap<>();
+    private final Map<Integer, Table> tableBuffer = new ConcurrentHashMap<>();
 
     /**
      * LookupTable constructor
@@ -37,8 +47,11 @@ public class LookupTable {
      */
     public LookupTable(int maxLevels) {
         this.maxLevels = maxLevels;
-        this.dataNodes = new HashMap<>();
-        this.lookup = new HashMap<>();
+        this.dataNodes = new ConcurrentHashMap<>();
+        this.dataIndex = new SortedIntSet();
+        this.nameIndex = new NameIDTrie();
+        this.lookup = new ConcurrentHashMap<>();
+        this.contentionCount = new AtomicLong();
     }
 
     /**
@@ -58,16 +71,10 @@ public class LookupTable {
     }
 
     /**
-     * @return numID of node in the buffer currently if it exists
+     * @return true if the node with the given numID is in the buffer
      */
-    public int bufferNumID() {
-        if (nodeBuffer == null)
-            return -1;
-        return nodeBuffer.getNumID();
-    }
-
-    public Table getLookUpTable() {
-        return tableBuffer;
+    public boolean isBuffered(int numID) {
+        return nodeBuffer.containsKey(numID);
     }
 
     /**
@@ -81,49 +88,78 @@ public class LookupTable {
      * @return false if the numID given was added previously, true otherwise.
      */
     public boolean addNode(NodeInfo node) {
-        NodeInfo ret = dataNodes.put(node.getNumID(), node);
-        if (ret == null) {
-            lookup.put(node.getNumID(), new Table());
+        synchronized (dataLock) {
+            NodeInfo ret = dataNodes.put(node.getNumID(), node);
+            if (ret == null) {
+                lookup.put(node.getNumID(), new Table());
+                dataIndex.add(node.getNumID());
+            } else {
+                nameIndex.remove(ret.getNameID(), ret.getNumID());
+            }
+            nameIndex.add(node.getNameID(), node.getNumID());
+            return ret == null;
         }
-        return ret == null;
     }
 
     /**
      * Adds the node to the buffer. This allows the user to finish finalizing the
      * node's lookup table before making it accessible. This also makes the node
      * inaccessible from getBestNum and getBestName. Once the node is finalized, you
-     * can use {@link LookupTable#finalizeNode()} to commit the node to the lookup
+     * can use {@link LookupTable#finalizeNode(int)} to commit the node to the lookup
      * table.
      *
      * @param node The NodeInfo of the node you want to add to the buffer.
      */
     public void initializeNode(NodeInfo node) {
-        nodeBuffer = Util.assignNode(node);
-        tableBuffer = new Table();
-        try {
-            tableBuffer.lockTable();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        Table table = new Table();
+        table.lockTable();
+        Table old = tableBuffer.put(node.getNumID(), table);
+        nodeBuffer.put(node.getNumID(), Util.assignNode(node));
+        // release the readers of a previous insertion of the same numID that never
+        // finished
+        if (old != null)
+            old.unlockTable();
     }
 
     /**
-     * Commits the node in buffer to the lookup table.
+     * Commits the node with the given numID from the buffer to the lookup table.
      *
+     * @param numID the numID of the buffered node
      * @return Returns false if the node was not initialized properly and thus not
      * committed.
      */
-    public boolean finalizeNode() {
-        if (this.nodeBuffer == null || this.tableBuffer == null)
+    public boolean finalizeNode(int numID) {
+        NodeInfo node = nodeBuffer.get(numID);
+        Table table = tableBuffer.get(numID);
+        if (node == null || table == null)
             return false;
-        dataNodes.put(nodeBuffer.getNumID(), nodeBuffer);
-        lookup.put(nodeBuffer.getNumID(), tableBuffer);
-        tableBuffer.unlockTable();
-        nodeBuffer = null;
-        tableBuffer = null;
+        synchronized (dataLock) {
+            NodeInfo ret = dataNodes.put(numID, node);
+            if (ret != null)
+                nameIndex.remove(ret.getNameID(), ret.getNumID());
+            lookup.put(numID, table);
+            dataIndex.add(numID);
+            nameIndex.add(node.getNameID(), numID);
+        }
+        table.unlockTable();
+        nodeBuffer.remove(numID);
+        tableBuffer.remove(numID);
         return true;
     }
 
+    /**
+     * Drops the node with the given numID from the buffer without committing it,
+     * releasing any reader blocked on its table.
+     *
+     * @param numID the numID of the buffered node
+     */
+    public void discardNode(int numID) {
+        nodeBuffer.remove(numID);
+        Table table = tableBuffer.remove(numID);
+        if (table != null)
+            table.unlockTable();
+    }
+
     /**
      * Removes all references to the node with the given numID
      *
@@ -131,8 +167,14 @@ public class LookupTable {
      * @return the stored node info of the given numID.
      */
     public NodeInfo remove(int numID) {
-        lookup.remove(numID);
-        return dataNodes.remove(numID);
+        synchronized (dataLock) {
+            NodeInfo node = dataNodes.get(numID);
+            if (node != null)
+                nameIndex.remove(node.getNameID(), numID);
+            dataIndex.remove(numID);
+            lookup.remove(numID);
+            return dataNodes.remove(numID);
+        }
     }
 
     /**
@@ -142,11 +184,11 @@ public class LookupTable {
      * @return the stored node info of the given numID
      */
     public NodeInfo get(int numID) {
-        // if the requested node is the one currently in the buffer
+        // if the requested node is in the buffer
         // then it is okay return its NodeInfo
-        if (nodeBuffer != null && nodeBuffer.getNumID() == numID) {
-            return nodeBuffer;
-        }
+        NodeInfo buffered = nodeBuffer.get(numID);
+        if (buffered != null)
+            return buffered;
         return dataNodes.get(numID);
     }
 
@@ -162,44 +204,58 @@ public class LookupTable {
      * invalid
      */
     public NodeInfo get(int numID, int level, int direction) {
-        // if the lookup table of the node in the buffer is to be accessed,
-        // then this will cause a block at this point until finalizeNode is
-        // called to unlock the tableBuffer.
-        if (nodeBuffer != null && nodeBuffer.getNumID() == numID) {
-            tableBuffer.get(level, direction);
+        // if the lookup table of a node in the buffer is to be accessed,
+        // then this will cause a block at this point until finalizeNode or
+        // discardNode is called to unlock its table, after which the committed
+        // table is read. The thread inserting the node reads its buffered table.
+        Table buffered = tableBuffer.get(numID);
+        if (buffered != null) {
+            if (buffered.isHeldByCurrentThread())
+                return buffered.get(level, direction);
+            buffered.awaitUnlocked();
         }
         if (!dataNodes.containsKey(numID))
             return null;
-        return lookup.get(numID).get(level, direction);
+        // the node may be removed concurrently after the check above
+        Table table = lookup.get(numID);
+        if (table == null)
+            return null;
+        return table.get(level, direction);
     }
 
     public boolean nodeExist(int numID) {
-        return ((nodeBuffer != null && nodeBuffer.getNumID() == numID)) || dataNodes.containsKey(numID);
+        return nodeBuffer.containsKey(numID) || dataNodes.containsKey(numID);
     }
 
     public boolean isLockAvailable(int numID) {
-        if (nodeBuffer != null && nodeBuffer.getNumID() == numID) {
-            boolean tmp = tableBuffer.lock.readLock().tryLock();
-            if (tmp) {
-                tableBuffer.lock.readLock().unlock();
-                return true;
-            } else {
-                return false;
-            }
-        }
+        Table table = tableBuffer.get(numID);
+        if (table == null)
+            table = lookup.get(numID);
+        return table == null || table.isAvailable();
+    }
 
-        boolean tmp = lookup.get(numID).lock.readLock().tryLock();
-        if (tmp) {
-            lookup.get(numID).lock.readLock().unlock();
-            return true;
-        } else {
-            return false;
-        }
+    /**
+     * Blocks the calling thread until the node with the given numID is committed
+     * by {@link LookupTable#finalizeNode(int)} or dropped from the buffer, or
+     * until the timeout passes. Returns at once if the node is not buffered or was
+     * buffered by the calling thread.
+     *
+     * @param numID   the numID of the node
+     * @param timeout the longest time to wait
+     * @param unit    the unit of timeout
+     * @return true if the table of the node can be read without blocking, false if
+     * the timeout passed first
+     */
+    public boolean awaitFinalized(int numID, long timeout, TimeUnit unit) {
+        Table table = tableBuffer.get(numID);
+        return table == null || table.awaitUnlocked(timeout, unit);
     }
 
     /**
      * Put the given newNode as a neighbor of the node with the given numID at the
-     * given level and direction if the node in place is the given expectedOldNode
+     * given level and direction if the node in place is the given expectedOldNode.
+     * The comparison and the replacement happen atomically, so a concurrent update
+     * of the same neighbor is never overwritten and never observed half done.
      *
      * @param numID           The numID of the node that you want to check the
      *                        neighbour of
@@ -208,76 +264,62 @@ public class LookupTable {
      * @param newNode         The node that you want in this location
      * @param expectedOldNode The node that you think is in this location (This is
      *                        to ensure that the lookup has not been modified since
-     *                        you last used "get()"
+     *                        you last used "get()"), or null to replace whatever
+     *                        node is in place
      * @return Returns true if the node was placed properly and the expectedOldNode
      * was what it replaced. False and the lookup is not modified otherwise.
+     * @see #getContentionCount()
      */
     public boolean put(int numID, int level, int direction, NodeInfo newNode, NodeInfo expectedOldNode) {
-        if (nodeBuffer != null && nodeBuffer.getNumID() == numID) {
-            return tableBuffer.safePut(level, direction, newNode, expectedOldNode);
+        Table buffered = tableBuffer.get(numID);
+        if (buffered != null) {
+            return buffered.safePut(level, direction, newNode, expectedOldNode);
         }
         if (!lookup.containsKey(numID))
             return false;
         return lookup.get(numID).safePut(level, direction, newNode, expectedOldNode);
     }
 
+    /**
+     * @return the number of times {@link #put(int, int, int, NodeInfo, NodeInfo)}
+     * found a neighbor other than the expected one, either rejecting the update or
+     * retrying after losing a race with another writer
+     */
+    public long getContentionCount() {
+        return contentionCount.get();
+    }
+
     /**
      * Returns the data node with the numID that is closest to the current node.
+     * The numIDs are kept sorted, so this is a binary search over the data nodes.
+     * When two data nodes are equally close the smaller numID is returned.
      *
      * @param numID The numID you are looking for
-     * @return The numID of the node that is closest to the argument.
+     * @return The numID of the node that is closest to the argument, or -1 if
+     * there are no data nodes.
      */
     public int getBestNum(int numID) {
-        long bestDif = Long.MAX_VALUE;
-        int bestNum = -1;
-        for (int cur : dataNodes.keySet()) {
-            int dif = Math.abs(numID - cur);
-            if (dif < bestDif) {
-                bestDif = dif;
-                bestNum = cur;
-            }
+        while (true) {
+            int best = dataIndex.closest(numID, -1);
+            // a node removed since the index was read is unindexed already, so
+            // reading it again finds the closest node that is left
+            if (best == -1 || dataNodes.containsKey(best))
+                return best;
         }
-        return bestNum;
     }
 
     /**
      * This method receives a nameID and returns the index of the data node which
-     * has the most common prefix with the given nameID
+     * has the most common prefix with the given nameID. Among the data nodes
+     * sharing that prefix, the rightmost one is returned when searching to the
+     * right and the leftmost one when searching to the left.
      *
      * @param name      nameID for which we shall find closest data node
      * @param direction the direction of search at the moment of call
      * @return numID of closest node
      */
-    public int getBestName(String name, int direction) {
-        try {
-            int best = -1;
-            int num = -1;
-            for (int cur : dataNodes.keySet()) {
-                if (num == -1)
-                    num = cur;
-                int tmp = Util.commonBits(name, dataNodes.get(cur).getNameID());
-                if (tmp > best) {
-                    best = tmp;
-                    num = cur;
-                }
-            }
-            for (int cur : dataNodes.keySet()) {
-                int bits = Util.commonBits(name, dataNodes.get(cur).getNameID());
-                if (bits == best) {
-                    if (direction == Const.RIGHT) {
-                        if (dataNodes.get(cur).getNumID() > num) {
-                            num = dataNodes.get(cur).getNumID();
-                        }
-                    } else if (dataNodes.get(cur).getNumID() < num) {
-                        num = dataNodes.get(cur).getNumID();
-                    }
-                }
-            }
-            return num;
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
-        }
+    public int getBestName(NameID name, int direction) {
+        return nameIndex.getBest(name, direction, dataIndex);
     }
 
     public List<NodeInfo> getLevel(int level, NodeInfo start) {
@@ -329,89 +371,118 @@ public class LookupTable {
         return maxLevels;
     }
 
+    /**
+     * The neighbors of a single data node, stored in a flat array indexed by
+     * 2 * level + direction so that reads are a single volatile array access.
+     * <p>
+     * While a node is in the insertion buffer its table is locked: any thread other
+     * than the one inserting the node is blocked on reads until the table is
+     * unlocked by {@link LookupTable#finalizeNode(int)}.
+     */
     class Table {
 
-        ReadWriteLock lock;
+        private final AtomicReferenceArray<NodeInfo> table;
 
-        private ConcurrentHashMap<Integer, NodeInfo> table;
+        // released when the table is unlocked, null while the table is unlocked
+        private volatile CountDownLatch unlocked;
+        // the thread that locked the table, which is never blocked by the lock
+        private volatile Thread owner;
 
         /**
          * constructor for Table
          */
         public Table() {
-            table = new ConcurrentHashMap<Integer, NodeInfo>();
-            lock = new ReentrantReadWriteLock(true);
-
+            table = new AtomicReferenceArray<>(2 * (maxLevels + 1));
         }
 
         /**
-         * locks the table for write operations
-         *
-         * @throws InterruptedException
+         * locks the table for write operations, blocking the reads of every other
+         * thread until the table is unlocked
          */
-        public void lockTable() throws InterruptedException {
-            lock.writeLock().tryLock(5, TimeUnit.SECONDS);
+        public void lockTable() {
+            owner = Thread.currentThread();
+            unlocked = new CountDownLatch(1);
         }
 
         /**
          * unlocks table for write operations
          */
         public void unlockTable() {
-            lock.writeLock().unlock();
+            CountDownLatch latch = unlocked;
+            unlocked = null;
+            owner = null;
+            if (latch != null)
+                latch.countDown();
         }
 
         /**
-         * returns neighbor node at a particular level and direction
-         *
-         * @param level     the level at which want to get neighbor
-         * @param direction left or right
-         * @return neighbor node
+         * @return true if the calling thread can read the table without blocking
          */
-        public NodeInfo get(int level, int direction) {
-
-            if (!validate(level, direction))
-                return null;
+        public boolean isAvailable() {
+            return unlocked == null || owner == Thread.currentThread();
+        }
 
-            lock.readLock().lock();
+        /**
+         * @return true if the table is locked by the calling thread
+         */
+        private boolean isHeldByCurrentThread() {
+            return owner == Thread.currentThread();
+        }
 
-            try {
-                return table.get(getIndex(level, direction));
-            } finally {
-                lock.readLock().unlock();
+        /**
+         * blocks the calling thread while the table is locked by another thread,
+         * until the node is finalized or discarded
+         */
+        private void awaitUnlocked() {
+            CountDownLatch latch = unlocked;
+            if (latch == null || owner == Thread.currentThread())
+                return;
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    latch.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
             }
+            if (interrupted)
+                Thread.currentThread().interrupt();
         }
 
         /**
-         * adds a new entry to the table
+         * blocks the calling thread while the table is locked by another thread, for
+         * at most the given time
          *
-         * @param level     the level at which to add entry
-         * @param direction the direction at which to add entry (left or right)
-         * @param newNode   the new node to be added
-         * @return null if invalid parameters or old value otherwise
+         * @return true if the table was unlocked or is owned by the calling thread
          */
-        private NodeInfo put(int level, int direction, NodeInfo newNode) {
-            if (!validate(level, direction))
-                return null;
-
-            if (newNode == null)
-                return remove(level, direction);
-
-            NodeInfo res = table.put(getIndex(level, direction), newNode);
-
-            return res;
+        private boolean awaitUnlocked(long timeout, TimeUnit unit) {
+            CountDownLatch latch = unlocked;
+            if (latch == null || owner == Thread.currentThread())
+                return true;
+            try {
+                return latch.await(timeout, unit);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
         }
 
         /**
-         * removes an entry from the table
+         * returns neighbor node at a particular level and direction
          *
-         * @param level     level of removal
-         * @param direction right or left
-         * @return removed elements
+         * @param level     the level at which want to get neighbor
+         * @param direction left or right
+         * @return neighbor node
          */
-        private NodeInfo remove(int level, int direction) {
+        public NodeInfo get(int level, int direction) {
 
-            return table.remove(getIndex(level, direction));
+            if (!validate(level, direction))
+                return null;
+
+            awaitUnlocked();
 
+            return table.get(getIndex(level, direction));
         }
 
         // TODO: see if we can get rid of expectedOldNode==null
@@ -424,12 +495,24 @@ public class LookupTable {
          * @return true if indeed expected old node was there or false otherwise
          */
         public boolean safePut(int level, int direction, NodeInfo newNode, NodeInfo expectedOldNode) {
-            NodeInfo cur = put(level, direction, newNode);
-            if (expectedOldNode == null || equal(cur, expectedOldNode))
-                return true;
-            else {
-                put(level, direction, cur);
+            if (!validate(level, direction))
                 return false;
+            int index = getIndex(level, direction);
+            if (expectedOldNode == null) {
+                table.set(index, newNode);
+                return true;
+            }
+            while (true) {
+                NodeInfo cur = table.get(index);
+                if (!equal(cur, expectedOldNode)) {
+                    contentionCount.incrementAndGet();
+                    return false;
+                }
+                // only replace the node that was compared, and compare again if another
+                // writer replaced it in the meantime
+                if (table.compareAndSet(index, cur, newNode))
+                    return true;
+                contentionCount.incrementAndGet();
             }
         }
 
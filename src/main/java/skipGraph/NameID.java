@@ -0,0 +1,244 @@
+package skipGraph;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable string of bits used as the nameID of a skip graph node and as the
+ * hash of blocks and transactions. The bits are packed most significant first
+ * into longs, so the common prefix of two nameIDs is found a word at a time and
+ * a nameID travels over RMI as a length and the packed bytes.
+ * <p>
+ * {@link #toString()} gives the usual textual form of one '0' or '1' character
+ * per bit, which is also what {@link #fromString(String)} accepts.
+ */
+public final class NameID implements Serializable, Comparable<NameID> {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient long[] words;
+	private transient int length;
+
+	private NameID(long[] words, int length) {
+		this.words = words;
+		this.length = length;
+	}
+
+	/**
+	 * @param s a string of '0' and '1' characters
+	 * @return the nameID with the given bits, or null if s is null
+	 * @throws IllegalArgumentException if s contains any other character
+	 */
+	public static NameID fromString(String s) {
+		if (s == null)
+			return null;
+		long[] words = new long[wordCount(s.length())];
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '1')
+				words[i >>> 6] |= mask(i);
+			else if (c != '0')
+				throw new IllegalArgumentException("Invalid nameID: " + s);
+		}
+		return new NameID(words, s.length());
+	}
+
+	/**
+	 * Returns the binary representation of a non negative number, padded from the
+	 * left with zeroes to the given length. A number needing more bits than the
+	 * length is not truncated.
+	 *
+	 * @param value  the number to convert
+	 * @param length the minimum number of bits of the nameID
+	 */
+	public static NameID fromInt(int value, int length) {
+		int needed = Integer.SIZE - Integer.numberOfLeadingZeros(value);
+		int len = Math.max(length, Math.max(needed, 1));
+		long[] words = new long[wordCount(len)];
+		for (int i = 0; i < needed; i++) {
+			if ((value >>> i & 1) != 0) {
+				int pos = len - 1 - i;
+				words[pos >>> 6] |= mask(pos);
+			}
+		}
+		return new NameID(words, len);
+	}
+
+	/**
+	 * @param bytes  the bytes to take the bits from, most significant bit first
+	 * @param length number of leading bits to take
+	 * @return the nameID made of the first length bits of bytes
+	 */
+	public static NameID fromBytes(byte[] bytes, int length) {
+		if (length < 0 || length > bytes.length * Byte.SIZE)
+			throw new IllegalArgumentException("Invalid nameID length: " + length);
+		long[] words = new long[wordCount(length)];
+		int byteCount = (length + Byte.SIZE - 1) / Byte.SIZE;
+		for (int i = 0; i < byteCount; i++)
+			words[i >>> 3] |= (bytes[i] & 0xFFL) << (56 - ((i & 7) << 3));
+		clearTail(words, length);
+		return new NameID(words, length);
+	}
+
+	public int length() {
+		return length;
+	}
+
+	/**
+	 * @param i the index of the bit, starting from the most significant one
+	 * @return 1 if the bit is set, 0 otherwise
+	 */
+	public int bit(int i) {
+		if (i < 0 || i >= length)
+			throw new IndexOutOfBoundsException("Bit " + i + " of a nameID of length " + length);
+		return (words[i >>> 6] & mask(i)) != 0 ? 1 : 0;
+	}
+
+	/**
+	 * Counts the number of leading bits this nameID shares with another one.
+	 *
+	 * @return the length of the common prefix, or -1 if other is null or does not
+	 * have the same length
+	 */
+	public int commonPrefix(NameID other) {
+		if (other == null || other.length != length)
+			return -1;
+		for (int w = 0; w < words.length; w++) {
+			long diff = words[w] ^ other.words[w];
+			if (diff != 0)
+				return Math.min(length, (w << 6) + Long.numberOfLeadingZeros(diff));
+		}
+		return length;
+	}
+
+	/**
+	 * @return the number whose binary representation is this nameID
+	 * @throws NumberFormatException if the number does not fit in an int
+	 */
+	public int toInt() {
+		long value = 0;
+		for (int i = 0; i < length; i++) {
+			value = value << 1 | bit(i);
+			if (value > Integer.MAX_VALUE)
+				throw new NumberFormatException("NameID " + this + " is out of the int range");
+		}
+		return (int) value;
+	}
+
+	/**
+	 * @return the bits of this nameID packed most significant bit first, with the
+	 * unused bits of the last byte cleared
+	 */
+	public byte[] toBytes() {
+		byte[] bytes = new byte[(length + Byte.SIZE - 1) / Byte.SIZE];
+		for (int i = 0; i < bytes.length; i++)
+			bytes[i] = (byte) (words[i >>> 3] >>> (56 - ((i & 7) << 3)));
+		return bytes;
+	}
+
+	@Override
+	public int compareTo(NameID other) {
+		int common = Math.min(length, other.length);
+		for (int w = 0; w < wordCount(common); w++) {
+			if (words[w] != other.words[w]) {
+				int pos = (w << 6) + Long.numberOfLeadingZeros(words[w] ^ other.words[w]);
+				if (pos < common)
+					return bit(pos) - other.bit(pos);
+			}
+		}
+		return Integer.compare(length, other.length);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(words) + length;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof NameID))
+			return false;
+		NameID other = (NameID) obj;
+		return length == other.length && Arrays.equals(words, other.words);
+	}
+
+	@Override
+	public String toString() {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++)
+			chars[i] = (words[i >>> 6] & mask(i)) != 0 ? '1' : '0';
+		return new String(chars);
+	}
+
+	/**
+	 * Writes a nameID, which may be null, in the compact layout used by the wire
+	 * formats of nodes, blocks and transactions: the length as a short (-1 for
+	 * null) followed by the packed bits.
+	 *
+	 * @see #read(DataInput)
+	 */
+	public static void write(DataOutput out, NameID id) throws IOException {
+		if (id == null) {
+			out.writeShort(-1);
+			return;
+		}
+		if (id.length > Short.MAX_VALUE)
+			throw new IOException("NameID of length " + id.length + " is too long to be written");
+		out.writeShort(id.length);
+		out.write(id.toBytes());
+	}
+
+	/**
+	 * Reads a nameID written by {@link #write(DataOutput, NameID)}.
+	 *
+	 * @return the nameID read, or null if a null nameID was written
+	 */
+	public static NameID read(DataInput in) throws IOException {
+		int len = in.readShort();
+		if (len < 0)
+			return null;
+		byte[] bytes = new byte[(len + Byte.SIZE - 1) / Byte.SIZE];
+		in.readFully(bytes);
+		return fromBytes(bytes, len);
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeInt(length);
+		out.write(toBytes());
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		int len = in.readInt();
+		if (len < 0)
+			throw new InvalidObjectException("Invalid nameID length: " + len);
+		byte[] bytes = new byte[(len + Byte.SIZE - 1) / Byte.SIZE];
+		in.readFully(bytes);
+		NameID read = fromBytes(bytes, len);
+		this.words = read.words;
+		this.length = read.length;
+	}
+
+	private static int wordCount(int length) {
+		return (length + Long.SIZE - 1) >>> 6;
+	}
+
+	private static long mask(int i) {
+		return 1L << (63 - (i & 63));
+	}
+
+	private static void clearTail(long[] words, int length) {
+		int rem = length & 63;
+		if (rem != 0)
+			words[words.length - 1] &= -1L << (64 - rem);
+	}
+}
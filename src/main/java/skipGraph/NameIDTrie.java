@@ -0,0 +1,165 @@
+package skipGraph;
+
+import util.Const;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A binary trie over the nameIDs of the data nodes of a skip node. Every trie
+ * node keeps the smallest and largest numID of the data nodes below it, so the
+ * data node sharing the longest common prefix with a nameID, tie-broken by the
+ * direction of the search, is found by walking down the bits of that nameID.
+ * <p>
+ * Only nameIDs of equal length have a common prefix (see
+ * {@link NameID#commonPrefix(NameID)}), so there is one trie per nameID
+ * length.
+ */
+public class NameIDTrie {
+
+    private final Map<Integer, Node> roots;
+    private final ReadWriteLock lock;
+
+    public NameIDTrie() {
+        roots = new HashMap<>();
+        lock = new ReentrantReadWriteLock();
+    }
+
+    /**
+     * Adds a data node to the trie.
+     *
+     * @param name  nameID of the data node
+     * @param numID numID of the data node
+     */
+    public void add(NameID name, int numID) {
+        if (name == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            Node node = roots.get(name.length());
+            if (node == null) {
+                node = new Node();
+                roots.put(name.length(), node);
+            }
+            Node[] path = new Node[name.length() + 1];
+            path[0] = node;
+            for (int i = 0; i < name.length(); i++) {
+                int bit = name.bit(i);
+                if (node.children[bit] == null)
+                    node.children[bit] = new Node();
+                node = node.children[bit];
+                path[i + 1] = node;
+            }
+            if (node.numIDs == null)
+                node.numIDs = new SortedIntSet();
+            if (node.numIDs.add(numID))
+                update(path);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a data node from the trie.
+     *
+     * @param name  nameID of the data node
+     * @param numID numID of the data node
+     */
+    public void remove(NameID name, int numID) {
+        if (name == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            Node node = roots.get(name.length());
+            if (node == null)
+                return;
+            Node[] path = new Node[name.length() + 1];
+            path[0] = node;
+            for (int i = 0; i < name.length() && node != null; i++) {
+                node = node.children[name.bit(i)];
+                path[i + 1] = node;
+            }
+            if (node == null || node.numIDs == null || !node.numIDs.remove(numID))
+                return;
+            update(path);
+            // prune the branches that became empty
+            for (int i = name.length(); i > 0; i--) {
+                if (path[i].count == 0)
+                    path[i - 1].children[name.bit(i - 1)] = null;
+            }
+            if (path[0].count == 0)
+                roots.remove(name.length());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the data node whose nameID has the longest common prefix with the given
+     * name. Among the data nodes sharing that prefix, the one with the largest
+     * numID is returned when searching to the right, and the one with the smallest
+     * numID when searching to the left.
+     *
+     * @param name      the nameID to match
+     * @param direction the direction of search at the moment of call
+     * @param dataIndex numIDs of all data nodes, used when no nameID of the same
+     *                  length as name exists
+     * @return numID of the best data node, or -1 if there are no data nodes
+     */
+    public int getBest(NameID name, int direction, SortedIntSet dataIndex) {
+        lock.readLock().lock();
+        try {
+            Node node = name == null ? null : roots.get(name.length());
+            if (node == null || node.count == 0) {
+                // no nameID shares any prefix with name, so every data node ties
+                return direction == Const.RIGHT ? dataIndex.last(-1) : dataIndex.first(-1);
+            }
+            for (int i = 0; i < name.length(); i++) {
+                Node child = node.children[name.bit(i)];
+                if (child == null || child.count == 0)
+                    break;
+                node = child;
+            }
+            return direction == Const.RIGHT ? node.max : node.min;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Recomputes the counts and numID bounds of the nodes on the given path from
+     * the bottom up.
+     */
+    private void update(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            Node node = path[i];
+            if (node.numIDs != null) {
+                node.count = node.numIDs.size();
+                node.min = node.numIDs.first(Integer.MAX_VALUE);
+                node.max = node.numIDs.last(Integer.MIN_VALUE);
+            } else {
+                node.count = 0;
+                node.min = Integer.MAX_VALUE;
+                node.max = Integer.MIN_VALUE;
+            }
+            for (Node child : node.children) {
+                if (child == null || child.count == 0)
+                    continue;
+                node.count += child.count;
+                node.min = Math.min(node.min, child.min);
+                node.max = Math.max(node.max, child.max);
+            }
+        }
+    }
+
+    private static class Node {
+        private final Node[] children = new Node[2];
+        // numIDs of the data nodes whose nameID ends at this node
+        private SortedIntSet numIDs;
+        private int count;
+        private int min = Integer.MAX_VALUE;
+        private int max = Integer.MIN_VALUE;
+    }
+}
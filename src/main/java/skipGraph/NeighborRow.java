@@ -0,0 +1,57 @@
+package skipGraph;
+
+import util.Const;
+
+import java.io.Serializable;
+
+/**
+ * A data node together with its left and right neighbors at one level of its
+ * lookup table. It lets a node walking a level list learn the node it visits and
+ * where to go next in a single remote call.
+ */
+public class NeighborRow implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final NodeInfo node;
+	private final NodeInfo left;
+	private final NodeInfo right;
+	private final int level;
+
+	/**
+	 * @param node  the data node, or null if it does not exist at the queried address
+	 * @param left  the left neighbor of node at the given level, or null if none
+	 * @param right the right neighbor of node at the given level, or null if none
+	 * @param level the level of the lookup table the neighbors are taken from
+	 */
+	public NeighborRow(NodeInfo node, NodeInfo left, NodeInfo right, int level) {
+		this.node = node;
+		this.left = left;
+		this.right = right;
+		this.level = level;
+	}
+
+	public NodeInfo getNode() {
+		return node;
+	}
+
+	public NodeInfo getLeft() {
+		return left;
+	}
+
+	public NodeInfo getRight() {
+		return right;
+	}
+
+	/**
+	 * @param direction the direction of the neighbor (left or right)
+	 * @return the neighbor of node in the given direction
+	 */
+	public NodeInfo getNeighbor(int direction) {
+		return direction == Const.LEFT ? left : right;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+}
@@ -1,5 +1,8 @@
 package skipGraph;
 
+import transport.Transport;
+import transport.Transports;
+
 import java.rmi.RemoteException;
 
 public class NodeConfig {
@@ -7,13 +10,19 @@ public class NodeConfig {
 	private int maxLevels;
 	private int RMIPort;
 	private int numID;
-	private String nameID;
+	private NameID nameID;
+	private Transport transport;
 	
-	public NodeConfig(int maxLevels, int RMIPort, int numID, String nameID) {
+	public NodeConfig(int maxLevels, int RMIPort, int numID, NameID nameID) {
+		this(maxLevels, RMIPort, numID, nameID, Transports.get(Transports.RMI));
+	}
+
+	public NodeConfig(int maxLevels, int RMIPort, int numID, NameID nameID, Transport transport) {
 		this.maxLevels = maxLevels;
 		this.RMIPort = RMIPort;
 		this.numID = numID;
 		this.nameID = nameID;
+		this.transport = transport;
 	}
 
 	public int getMaxLevels() {
@@ -40,13 +49,21 @@ public class NodeConfig {
 		this.numID = numID;
 	}
 
-	public String getNameID() {
+	public NameID getNameID() {
 		return nameID;
 	}
 
-	public void setNameID(String nameID) {
+	public void setNameID(NameID nameID) {
 		this.nameID = nameID;
 	}
 
+	public Transport getTransport() {
+		return transport;
+	}
+
+	public void setTransport(Transport transport) {
+		this.transport = transport;
+	}
+
 	
 }
@@ -1,18 +1,38 @@
 package skipGraph;
 
-import java.io.Serializable;
-
-public class NodeInfo implements Serializable {
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * The address, numID and nameID of a skip graph node. NodeInfo and its
+ * subclasses travel over RMI in a compact layout written by
+ * {@link #writeExternal(ObjectOutput)}, to which subclasses append their own
+ * fields. Every class of the wire format starts its fields with its own
+ * WIRE_VERSION byte, bumped whenever its layout changes, and rejects other
+ * versions when reading.
+ */
+public class NodeInfo implements Externalizable {
 
 	private static final long serialVersionUID = 1L;
+	private static final byte WIRE_VERSION = 1;
 	private String address;
 	private int numID;
-	private String nameID;
+	private NameID nameID;
+
+	/**
+	 * Creates an empty NodeInfo to be filled by {@link #readExternal(ObjectInput)},
+	 * only meant for deserialization.
+	 */
+	public NodeInfo() {
+	}
 
 	/*
 	 * Constructor for NodeInfo
 	 */
-	public NodeInfo(String adrs, int num, String name) {
+	public NodeInfo(String adrs, int num, NameID name) {
 		this.address = adrs;
 		this.numID = num;
 		this.nameID = name;
@@ -35,7 +55,7 @@ public class NodeInfo implements Serializable {
 		return numID;
 	}
 
-	public String getNameID() {
+	public NameID getNameID() {
 		return nameID;
 	}
 
@@ -47,10 +67,54 @@ public class NodeInfo implements Serializable {
 		this.numID = num;
 	}
 
-	public void setNameID(String name) {
+	public void setNameID(NameID name) {
 		this.nameID = name;
 	}
 
+	/**
+	 * Writes the node as a version byte followed by the address, the numID and the
+	 * packed bits of the nameID.
+	 */
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeByte(WIRE_VERSION);
+		writeString(out, address);
+		out.writeInt(numID);
+		NameID.write(out, nameID);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+		checkVersion(in, WIRE_VERSION, NodeInfo.class);
+		address = readString(in);
+		numID = in.readInt();
+		nameID = NameID.read(in);
+	}
+
+	/**
+	 * Reads the version byte that starts the fields of a class in the wire format.
+	 *
+	 * @throws InvalidObjectException if it is not the version the class writes
+	 */
+	protected static void checkVersion(ObjectInput in, byte version, Class<?> cls) throws IOException {
+		byte read = in.readByte();
+		if (read != version)
+			throw new InvalidObjectException("Unsupported wire version " + read + " of " + cls.getSimpleName());
+	}
+
+	/**
+	 * Writes a string that may be null.
+	 */
+	protected static void writeString(ObjectOutput out, String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	protected static String readString(ObjectInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
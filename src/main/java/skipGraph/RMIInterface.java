@@ -18,16 +18,18 @@ public interface RMIInterface extends Remote {
 
 	public NodeInfo getRightNode(int level, int num) throws RemoteException;
 
-	public String getNameID() throws RemoteException;
+	public NameID getNameID() throws RemoteException;
 
 	public String getAddress() throws RemoteException;
 
-	public String getLeftNameID(int level, int num) throws RemoteException;
+	public NameID getLeftNameID(int level, int num) throws RemoteException;
 
-	public String getRightNameID(int level, int num) throws RemoteException;
+	public NameID getRightNameID(int level, int num) throws RemoteException;
 
 	public NodeInfo getNode(int num) throws RemoteException;
 
+	public NeighborRow getNeighbors(int num, int level) throws RemoteException;
+
 	public int getNumID() throws RemoteException;
 
 	public int getLeftNumID(int level, int num) throws RemoteException;
@@ -37,7 +39,9 @@ public interface RMIInterface extends Remote {
 	public void delete(int num) throws RemoteException;
 
 	/*
-	 * Setters
+	 * Setters. The neighbor is compared with oldNode and replaced by newNode in one
+	 * atomic step, and left unchanged if it is not oldNode. A null oldNode replaces
+	 * the neighbor unconditionally.
 	 */
 
 	public boolean setLeftNode(int num, int level, NodeInfo newNode, NodeInfo oldNode) throws RemoteException;
@@ -48,7 +52,7 @@ public interface RMIInterface extends Remote {
 	 * Searches
 	 */
 
-	public NodeInfo searchByNameID(String targetString) throws RemoteException;
+	public NodeInfo searchByNameID(NameID targetString) throws RemoteException;
 
 	public NodeInfo searchByNumID(int targetNum) throws RemoteException;
 
@@ -57,13 +61,19 @@ public interface RMIInterface extends Remote {
 	public List<NodeInfo> searchNumID(int numID, int searchTarget, int level, List<NodeInfo> lst)
 			throws RemoteException;
 
+	public SearchResult searchNumIDHops(int numID, int searchTarget, int level, int hops) throws RemoteException;
+
+	public SearchStep searchNumIDStep(int numID, int searchTarget, int level) throws RemoteException;
+
+	public SearchStep[] searchNumIDSteps(int numID, int[] searchTargets, int level) throws RemoteException;
+
 	/*
 	 * Skip Node with data nodes functions
 	 */
 
-	public NodeInfo searchName(int numID, String searchTarget, int level, int direction) throws RemoteException;
+	public NodeInfo searchName(int numID, NameID searchTarget, int level, int direction) throws RemoteException;
 
-	public NodeInfo insertSearch(int level, int direction, int num, String target) throws RemoteException, FileNotFoundException;
+	public NodeInfo insertSearch(int level, int direction, int num, NameID target) throws RemoteException, FileNotFoundException;
 
 	// Pinging
 
@@ -0,0 +1,50 @@
+package skipGraph;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * The outcome of a numID search: the node the search ended at, the number of
+ * hops it took to get there and, only when it was asked for, the nodes on the
+ * path of the search.
+ * <p>
+ * Searches that do not record their path forward only the hop count from hop to
+ * hop, so the size of every RMI call stays constant instead of growing with the
+ * path.
+ */
+public class SearchResult implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final NodeInfo node;
+	private final int hops;
+	private final List<NodeInfo> path;
+
+	/**
+	 * @param node the node at which the search ended
+	 * @param hops the number of times the search was forwarded to another node
+	 * @param path the nodes on the path of the search, or null if it was not
+	 *             recorded
+	 */
+	public SearchResult(NodeInfo node, int hops, List<NodeInfo> path) {
+		this.node = node;
+		this.hops = hops;
+		this.path = path;
+	}
+
+	public NodeInfo getNode() {
+		return node;
+	}
+
+	public int getHops() {
+		return hops;
+	}
+
+	/**
+	 * @return the nodes on the path of the search in the order they were visited,
+	 * or null if the path was not recorded
+	 */
+	public List<NodeInfo> getPath() {
+		return path;
+	}
+}
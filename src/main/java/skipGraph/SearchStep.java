@@ -0,0 +1,53 @@
+package skipGraph;
+
+import java.io.Serializable;
+
+/**
+ * The answer of a single node to one hop of a numID search. It holds the node
+ * at which the hop was served (the closest node to the target known at that
+ * address) and, unless the search has terminated, the neighbor to which the
+ * search should be forwarded together with the level at which it continues.
+ * <p>
+ * Steps are returned to the node driving an iterative search, which then
+ * contacts the next hop itself instead of having every hop forward the search
+ * recursively.
+ */
+public class SearchStep implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final NodeInfo current;
+	private final NodeInfo next;
+	private final int level;
+
+	/**
+	 * @param current the node at which this hop was served
+	 * @param next    the neighbor to forward the search to, or null if the search
+	 *                terminates at current
+	 * @param level   the level at which the search continues on next
+	 */
+	public SearchStep(NodeInfo current, NodeInfo next, int level) {
+		this.current = current;
+		this.next = next;
+		this.level = level;
+	}
+
+	public NodeInfo getCurrent() {
+		return current;
+	}
+
+	public NodeInfo getNext() {
+		return next;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * @return true if the search has terminated and current is its result
+	 */
+	public boolean isFinal() {
+		return next == null;
+	}
+}
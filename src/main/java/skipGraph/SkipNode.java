@@ -1,38 +1,65 @@
 package skipGraph;
 
+import delay.DelayMode;
+import delay.SkipNodeDelayWrapper;
+import delay.VirtualClock;
 import org.apache.log4j.Logger;
 import remoteTest.Configuration;
 import remoteTest.PingLog;
 import remoteTest.TestingLog;
+import transport.Transport;
 import util.Const;
 import util.Util;
 
 import java.io.*;
-import java.rmi.Naming;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
-import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Random;
-
-public class SkipNode extends UnicastRemoteObject implements RMIInterface {
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SkipNode implements RMIInterface {
 
     private static final long serialVersionUID = 1L;
+    // upper bound on the hops of an iterative search, guards against routing loops
+    private static final int MAX_SEARCH_HOPS = 1 << 12;
+    // how long an insertion search waits for a node that is being inserted
+    private static final long FINALIZE_TIMEOUT_MILLIS = 1000;
+    // runs the independent parts of overlay operations: the left ladder of
+    // insertions while the inserting thread climbs the right one, and the hops of
+    // batched searches. When all its threads are busy the caller runs the task.
+    private static final ExecutorService EXECUTOR = new ThreadPoolExecutor(0,
+            Math.max(2, Runtime.getRuntime().availableProcessors()), 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+            Util.daemonThreadFactory("skip-node"), new ThreadPoolExecutor.CallerRunsPolicy());
 
     protected NodeInfo peerNode;
     protected String address;
-    protected String nameID;
+    protected NameID nameID;
     protected String IP;
     private String introducer;
     private int maxLevels;
     protected int numID;
     protected int RMIPort;
     protected boolean isInserted = false;
-    private Registry registry;
+    protected final Transport transport;
     private LookupTable lookup;
     private Logger logger;
+    private boolean iterativeSearch = false;
+    private DelayMode delayMode = DelayMode.NONE;
+    private Stabilizer stabilizer;
+    private volatile FailureDetector failureDetector;
+    private final StubCache stubCache;
 
     // TODO: fork-resolving mechanism unimplemented
     // TODO: bootstrapping unimplemented
@@ -51,8 +78,9 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      *                   skipGraph
      */
     public SkipNode(NodeConfig config, String introducer, boolean isInitial) throws RemoteException {
-        super(config.getRMIPort());
         this.RMIPort = config.getRMIPort();
+        this.transport = config.getTransport();
+        this.stubCache = new StubCache(transport);
         initRMI();
         this.maxLevels = config.getMaxLevels();
         this.numID = config.getNumID();
@@ -77,9 +105,8 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
             isInserted = true;
 
         // TODO: this should be removed when launching LightChainNode
-        registry = LocateRegistry.createRegistry(RMIPort);
-        registry.rebind("RMIImpl", this);
-        logger.info("Rebinding Successful");
+        transport.export(this, RMIPort);
+        logger.info("Export Successful");
         if (!isInitial) {
             insertNode(peerNode);
         }
@@ -93,10 +120,14 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      * @param config
      * @param introducer
      * @param isInitial
+     * @param transport  the transport the node is exported on and reaches other
+     *                   nodes through
      * @throws RemoteException
      */
-    public SkipNode(int RMIPort, int maxLevels, String introducer) throws RemoteException {
+    public SkipNode(int RMIPort, int maxLevels, String introducer, Transport transport) throws RemoteException {
         this.RMIPort = RMIPort;
+        this.transport = transport;
+        this.stubCache = new StubCache(transport);
         initRMI();
         this.maxLevels = maxLevels;
         this.introducer = introducer;
@@ -157,7 +188,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         }
     }
 
-    public void insertDataNode(int nodeNumID, String nodeNameID) {
+    public void insertDataNode(int nodeNumID, NameID nodeNameID) {
         insertNode(new NodeInfo(address, nodeNumID, nodeNameID));
     }
 
@@ -186,6 +217,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
 
             if (closestNode == null) {
                 logger.error("The address resulting from the search is null");
+                lookup.discardNode(insertedNode.getNumID());
                 return;
             }
 
@@ -247,62 +279,268 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
             // Now, we insert the node in the rest of the levels
             // In level i , we make a recursive search for the nodes that will be
             // the neighbors of the inserted nodes at level i+1
+            // The left and right ladders are independent until the node is finalized,
+            // so the left one is climbed by a worker while this thread climbs the right.
+            final NodeInfo leftStart = leftNode;
+            VirtualClock.Fork ladders = VirtualClock.fork();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            Future<?> leftLadder = null;
+            if (leftStart != null) {
+                leftLadder = EXECUTOR.submit(ladders.wrap(() -> {
+                    climbLadder(insertedNode, leftStart, Const.LEFT, cancelled);
+                    return null;
+                }));
+            }
+            try {
+                climbLadder(insertedNode, rightNode, Const.RIGHT, cancelled);
+            } catch (Exception e) {
+                cancelled.set(true);
+                throw e;
+            } finally {
+                // the left ladder must be over before the node is finalized or
+                // discarded, so that no remote node is linked to a discarded node
+                if (leftLadder != null) {
+                    try {
+                        leftLadder.get();
+                    } catch (ExecutionException e) {
+                        // fail the insertion with the error of the left ladder, unless
+                        // the right one already failed it
+                        if (!cancelled.get()) {
+                            if (e.getCause() instanceof IOException)
+                                throw (IOException) e.getCause();
+                            throw e;
+                        }
+                    }
+                    ladders.join();
+                }
+            }
+            // after we conclude inserting the node in all levels,
+            // we add the inserted node to the data array
+            // and we map its numID with its index in the data array using dataID
+            lookup.finalizeNode(insertedNode.getNumID());
 
-            int level = Const.ZERO_LEVEL;
-            while (level < maxLevels) {
+        } catch (RemoteException e) {
+            e.printStackTrace();
+            lookup.discardNode(insertedNode.getNumID());
+        } catch (Exception e) {
+            e.printStackTrace();
+            lookup.discardNode(insertedNode.getNumID());
+        }
+    }
 
-                if (leftNode != null) {
+    /**
+     * Inserts a batch of data nodes of this address. The batch is sorted by numID and
+     * split into runs of nodes that fall between the same two neighbors at level 0.
+     * The nodes of a run are linked to each other locally, and remote nodes are
+     * only contacted at the ends of a run: one search to find where the run goes,
+     * and at every level the searches and neighbor updates of the nodes whose new
+     * neighbor lies outside the run.
+     *
+     * @param nodes the data nodes to insert
+     * @return whether each node was inserted, in the order of the given list. Nodes
+     * whose numID is already in the skip graph or repeated in the batch are not.
+     */
+    public boolean[] insertNodes(List<NodeInfo> nodes) {
+        boolean[] inserted = new boolean[nodes.size()];
+        // positions of the batch in the given list, sorted by numID without repetitions
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) != null)
+                order.add(i);
+        }
+        order.sort(Comparator.comparingInt(i -> nodes.get(i).getNumID()));
+        for (int i = order.size() - 1; i > 0; i--) {
+            if (nodes.get(order.get(i)).getNumID() == nodes.get(order.get(i - 1)).getNumID())
+                order.remove(i);
+        }
 
-                    RMIInterface leftRMI = getRMI(leftNode.getAddress());
-                    // start search left
-                    NodeInfo lft = leftRMI.insertSearch(level, Const.LEFT, leftNodeNumID, insertedNode.getNameID());
+        int next = 0;
+        if (!isInserted && !order.isEmpty()) {
+            // the first node is inserted through the introducer
+            NodeInfo first = nodes.get(order.get(0));
+            insertNode(first);
+            inserted[order.get(0)] = lookup.nodeExist(first.getNumID()) && !lookup.isBuffered(first.getNumID());
+            next = 1;
+        }
+        while (next < order.size())
+            next = insertRun(nodes, order, next, inserted);
+        return inserted;
+    }
 
-                    lookup.put(insertedNode.getNumID(), level + 1, Const.LEFT, Util.assignNode(lft), null);
+    /**
+     * Inserts the run of the batch starting at the given position, made of the nodes
+     * that fall between the same two neighbors at level 0 as its first node.
+     *
+     * @param nodes    the batch
+     * @param order    positions of the batch sorted by numID
+     * @param from     position in order of the first node of the run
+     * @param inserted the results of the batch, updated for the nodes of the run
+     * @return position in order of the first node after the run
+     */
+    private int insertRun(List<NodeInfo> nodes, List<Integer> order, int from, boolean[] inserted) {
+        NodeInfo first = nodes.get(order.get(from));
+        List<NodeInfo> run = new ArrayList<>();
+        Set<Integer> runNumIDs = new HashSet<>();
+        // the neighbors of remote nodes set so far, set back if the run fails
+        List<RemoteLink> links = new ArrayList<>();
+        try {
+            NodeInfo closestNode = searchByNumID(first.getNumID());
+            if (closestNode == null) {
+                logger.error("The address resulting from the search is null");
+                return from + 1;
+            }
+            if (closestNode.getNumID() == first.getNumID())
+                return from + 1;
 
-                    // set left and leftNum to default values (null,-1)
-                    // so that if the left neighbor is null then we no longer need
-                    // to search in higher levels to the left
-                    leftNode = null;
-                    leftNodeNumID = Const.UNASSIGNED_INT;
+            RMIInterface closestNodeRMI = getRMI(closestNode.getAddress());
+            NodeInfo leftNode;
+            NodeInfo rightNode;
+            if (first.getNumID() < closestNode.getNumID()) {
+                leftNode = closestNodeRMI.getLeftNode(Const.ZERO_LEVEL, closestNode.getNumID());
+                rightNode = Util.assignNode(closestNode);
+            } else {
+                leftNode = Util.assignNode(closestNode);
+                rightNode = closestNodeRMI.getRightNode(Const.ZERO_LEVEL, closestNode.getNumID());
+            }
 
-                    if (lft != null) {
-                        RMIInterface lftRMI = getRMI(lft.getAddress());
-                        lftRMI.setRightNode(lft.getNumID(), level + 1, insertedNode, null);
-                        leftNode = lft;
-                        leftNodeNumID = lft.getNumID();
-                    }
-                }
-                if (rightNode != null) {
+            // the run goes on until the next node of the batch is past the right neighbor
+            int end = from;
+            while (end < order.size()
+                    && (rightNode == null || nodes.get(order.get(end)).getNumID() < rightNode.getNumID())) {
+                NodeInfo node = nodes.get(order.get(end));
+                run.add(node);
+                runNumIDs.add(node.getNumID());
+                lookup.initializeNode(node);
+                end++;
+            }
+            // the first node of the batch is already in the skip graph
+            if (run.isEmpty())
+                return from + 1;
+
+            // at level 0 the run is a contiguous piece of the list, linked to the left
+            // and right neighbors only at its ends
+            for (int i = 0; i < run.size(); i++) {
+                NodeInfo left = i == 0 ? leftNode : run.get(i - 1);
+                NodeInfo right = i == run.size() - 1 ? rightNode : run.get(i + 1);
+                lookup.put(run.get(i).getNumID(), Const.ZERO_LEVEL, Const.LEFT, Util.assignNode(left), null);
+                lookup.put(run.get(i).getNumID(), Const.ZERO_LEVEL, Const.RIGHT, Util.assignNode(right), null);
+            }
+            if (leftNode != null)
+                link(leftNode, Const.ZERO_LEVEL, Const.RIGHT, run.get(0), rightNode, links);
+            if (rightNode != null)
+                link(rightNode, Const.ZERO_LEVEL, Const.LEFT, run.get(run.size() - 1), leftNode, links);
 
-                    RMIInterface rightRMI = getRMI(rightNode.getAddress());
-                    // start search right
-                    NodeInfo rit = rightRMI.insertSearch(level, Const.RIGHT, rightNodeNumID, insertedNode.getNameID());
-                    lookup.put(insertedNode.getNumID(), level + 1, Const.RIGHT, Util.assignNode(rit), null);
-
-                    // set right and rightNum to default values (null,-1)
-                    // so that if the right neighbor is null then we no longer need
-                    // to search in higher levels to the right
-                    rightNode = null;
-                    rightNodeNumID = Const.UNASSIGNED_INT;
-
-                    if (rit != null) {
-                        RMIInterface ritRMI = getRMI(rit.getAddress());
-                        ritRMI.setLeftNode(rit.getNumID(), level + 1, insertedNode, null);
-                        rightNode = rit;
-                        rightNodeNumID = rit.getNumID();
-                    }
+            // the neighbors at a level are found from the neighbors at the level below
+            for (int level = Const.ZERO_LEVEL; level < maxLevels; level++) {
+                for (NodeInfo node : run) {
+                    linkRunNode(node, level, Const.LEFT, runNumIDs, links);
+                    linkRunNode(node, level, Const.RIGHT, runNumIDs, links);
                 }
-                level++;
             }
-            // after we conclude inserting the node in all levels,
-            // we add the inserted node to the data array
-            // and we map its numID with its index in the data array using dataID
-            lookup.finalizeNode();
 
-        } catch (RemoteException e) {
-            e.printStackTrace();
+            for (int i = from; i < end; i++) {
+                lookup.finalizeNode(nodes.get(order.get(i)).getNumID());
+                inserted[order.get(i)] = true;
+            }
+            return end;
         } catch (Exception e) {
             e.printStackTrace();
+            unlink(links);
+            for (NodeInfo node : run)
+                lookup.discardNode(node.getNumID());
+            return from + Math.max(run.size(), 1);
+        }
+    }
+
+    /**
+     * Sets the neighbor of a remote node in the given direction, if it still is the
+     * expected one, and records the change so that it can be undone.
+     *
+     * @param node      the remote node
+     * @param level     the level of the neighbor
+     * @param direction the direction of the neighbor from the remote node
+     * @param linked    the new neighbor
+     * @param old       the expected neighbor, or null to set it whatever it is
+     * @param links     receives the change
+     * @throws RemoteException if the remote node could not be reached, or its
+     *                         neighbor was no longer the expected one
+     */
+    private void link(NodeInfo node, int level, int direction, NodeInfo linked, NodeInfo old, List<RemoteLink> links)
+            throws RemoteException {
+        RMIInterface nodeRMI = getRMI(node.getAddress());
+        if (nodeRMI == null)
+            throw new RemoteException("Could not reach " + node.getAddress());
+        boolean set = direction == Const.LEFT ? nodeRMI.setLeftNode(node.getNumID(), level, linked, old)
+                : nodeRMI.setRightNode(node.getNumID(), level, linked, old);
+        if (!set)
+            throw new RemoteException("Neighbor of " + node.getNumID() + " at level " + level + " changed");
+        links.add(new RemoteLink(node, level, direction, linked, old));
+    }
+
+    /**
+     * Sets back the neighbors of remote nodes changed by a failed insertion, latest
+     * first. A neighbor that was changed again since is left alone.
+     */
+    private void unlink(List<RemoteLink> links) {
+        for (int i = links.size() - 1; i >= 0; i--) {
+            RemoteLink link = links.get(i);
+            try {
+                RMIInterface nodeRMI = getRMI(link.node.getAddress());
+                if (nodeRMI == null) {
+                    logger.error("Could not unlink " + link.linked.getNumID() + " from " + link.node.getNumID());
+                    continue;
+                }
+                if (link.direction == Const.LEFT)
+                    nodeRMI.setLeftNode(link.node.getNumID(), link.level, link.old, link.linked);
+                else
+                    nodeRMI.setRightNode(link.node.getNumID(), link.level, link.old, link.linked);
+            } catch (RemoteException e) {
+                logger.error("Could not unlink " + link.linked.getNumID() + " from " + link.node.getNumID(), e);
+            }
+        }
+    }
+
+    /**
+     * Finds and links the neighbor at level + 1 of a node of a run that is being
+     * inserted in the given direction. The level is walked locally as long as it
+     * goes through nodes of the run, and the search is only handed to a remote node
+     * once it leaves the run.
+     *
+     * @param node      the node of the run
+     * @param level     the level whose neighbors are already linked
+     * @param direction the direction of the neighbor
+     * @param runNumIDs the numIDs of the nodes of the run
+     * @param links     receives the neighbors of remote nodes that are set
+     */
+    private void linkRunNode(NodeInfo node, int level, int direction, Set<Integer> runNumIDs,
+                             List<RemoteLink> links) throws RemoteException, FileNotFoundException {
+        NodeInfo cur = lookup.get(node.getNumID(), level, direction);
+        while (cur != null && runNumIDs.contains(cur.getNumID())) {
+            if (Util.commonBits(node.getNameID(), cur.getNameID()) > level)
+                break;
+            cur = lookup.get(cur.getNumID(), level, direction);
+        }
+        if (cur == null)
+            return;
+        if (runNumIDs.contains(cur.getNumID())) {
+            // both nodes are in the run, each links the other from its own side
+            lookup.put(node.getNumID(), level + 1, direction, Util.assignNode(cur), null);
+            return;
+        }
+        NodeInfo found = getRMI(cur.getAddress()).insertSearch(level, direction, cur.getNumID(), node.getNameID());
+        lookup.put(node.getNumID(), level + 1, direction, Util.assignNode(found), null);
+        if (found != null) {
+            RMIInterface foundRMI = getRMI(found.getAddress());
+            if (foundRMI == null)
+                throw new RemoteException("Could not reach " + found.getAddress());
+            // the node goes between the found node and its neighbor on the other side
+            if (direction == Const.LEFT) {
+                NodeInfo old = foundRMI.getRightNode(level + 1, found.getNumID());
+                link(found, level + 1, Const.RIGHT, node, old, links);
+            } else {
+                NodeInfo old = foundRMI.getLeftNode(level + 1, found.getNumID());
+                link(found, level + 1, Const.LEFT, node, old, links);
+            }
         }
     }
 
@@ -316,9 +554,12 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      * @param target    the name ID of the inserted node.
      * @return Right neighbor if direction is RIGHT, and left neighbor if direction
      * is LEFT
-     * @see RMIInterface#insertSearch(int, int, int, java.lang.String)
+     * @throws RemoteException if the search failed on its way, including when a node
+     *                         it reached was not committed within
+     *                         FINALIZE_TIMEOUT_MILLIS
+     * @see RMIInterface#insertSearch(int, int, int, NameID)
      */
-    public NodeInfo insertSearch(int level, int direction, int nodeNumID, String target) throws RemoteException {
+    public NodeInfo insertSearch(int level, int direction, int nodeNumID, NameID target) throws RemoteException {
         try {
             //logger.debug("Inserting " + target + " at level " + level);
             NodeInfo currentNode = lookup.get(nodeNumID);
@@ -337,10 +578,14 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
             if (!lookup.nodeExist(nodeNumID))
                 return null;
 
-            if (direction == Const.RIGHT) {
+            // the node may be in the middle of its own insertion, in which case the
+            // search resumes as soon as its table is committed, or fails if it is
+            // not committed in time rather than report no neighbor
+            if (!lookup.isLockAvailable(nodeNumID)
+                    && !lookup.awaitFinalized(nodeNumID, FINALIZE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS))
+                throw new RemoteException("Node " + nodeNumID + " is still being inserted");
 
-                if (!lookup.isLockAvailable(nodeNumID))
-                    wait(new Random().nextInt(900) + 100);
+            if (direction == Const.RIGHT) {
 
                 NodeInfo rNode = lookup.get(nodeNumID, level, direction);
                 if (rNode == null)
@@ -358,6 +603,9 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
                 RMIInterface lRMI = getRMI(lNode.getAddress());
                 return lRMI.insertSearch(level, direction, lNode.getNumID(), target);
             }
+        } catch (RemoteException e) {
+            // the search failed on the way, which is not the same as finding no neighbor
+            throw e;
         } catch (Exception e) {
             e.printStackTrace();
             logger.error("sars");
@@ -391,10 +639,35 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      */
     public NodeInfo searchByNumID(int searchTarget) {
         //logger.debug("Searching for " + searchTarget);
+        SearchResult result = searchByNumIDResult(searchTarget, false);
+        return result == null ? null : result.getNode();
+    }
+
+    /**
+     * Executes a search through the skip graph by numeric id like
+     * {@link #searchByNumID(int)}, and also reports how many hops the search took.
+     * The nodes on the path of the search are only collected when asked for, since
+     * a recursive search then ships the whole path on every hop.
+     *
+     * @param searchTarget numerical ID of target of search
+     * @param recordPath   true to collect the nodes on the search path
+     * @return the result of the search, or null if the search failed
+     */
+    public SearchResult searchByNumIDResult(int searchTarget, boolean recordPath) {
         try {
-            List<NodeInfo> lst = new ArrayList<NodeInfo>();
-            lst = searchByNumIDHelper(searchTarget, lst);
-            return lst == null ? null : lst.get(lst.size() - 1);
+            if (recordPath) {
+                List<NodeInfo> lst = searchByNumIDHelper(searchTarget, new ArrayList<NodeInfo>());
+                return lst == null ? null : new SearchResult(lst.get(lst.size() - 1), lst.size() - 1, lst);
+            }
+            if (iterativeSearch)
+                return searchIterative(searchTarget);
+            // route search to closest data node
+            int num = getBestNum(searchTarget);
+            if (lookup.get(num, Const.ZERO_LEVEL, Const.LEFT) == null
+                    && lookup.get(num, Const.ZERO_LEVEL, Const.RIGHT) == null) {
+                return new SearchResult(lookup.get(num), 0, null);
+            }
+            return searchNumIDHops(numID, searchTarget, lookup.getMaxLevels(), 0);
 
         } catch (IllegalMonitorStateException | NullPointerException e) {
             return null;
@@ -409,7 +682,9 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
     /**
      * A helper method for searchByNumID, it essentially starts the search operation
      * but it supplies the search with an empty list to collect the nodes on the
-     * path of the search
+     * path of the search. As the list travels with the search and grows on every
+     * hop, it is meant for diagnostics; searches that only need the result should
+     * use {@link #searchByNumIDResult(int, boolean)} instead.
      *
      * @param searchTarget numerical ID to be searched
      * @param lst          the list which will collect the nodes on the search path
@@ -447,68 +722,278 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      */
     public List<NodeInfo> searchNumID(int numID, int targetInt, int level, List<NodeInfo> lst) throws RemoteException {
 
+        SearchStep step = searchNumIDStep(numID, targetInt, level);
+        // Add the current node's info to the search list
+        lst.add(step.getCurrent());
+        // If there are no more levels to go down to return the current node
+        if (step.isFinal())
+            return lst;
+
+        // delegate the search to the neighbor found by the step
+        NodeInfo next = step.getNext();
+        RMIInterface nextRMI = getRMI(next.getAddress());
+        try {
+            return nextRMI.searchNumID(next.getNumID(), targetInt, step.getLevel(), lst);
+        } catch (StackOverflowError e) {
+            logger.error("StackOverflow", e);
+            StringBuilder sb = new StringBuilder();
+            for (NodeInfo node : lst)
+                sb.append(node.getNumID() + " " + node.getAddress() + "\n");
+            logger.error(sb.toString());
+            return null;
+        } catch (Exception e) {
+            return lst;
+        }
+    }
+
+    /**
+     * Routes a numID search through the skip graph recursively like
+     * {@link #searchNumID(int, int, int, List)}, but forwards only the number of
+     * hops made so far instead of the nodes on the path.
+     *
+     * @param numID     numerical ID of current node at which the search has arrived
+     * @param targetInt the target of search
+     * @param level     the level of skip graph at which we are searching
+     * @param hops      the number of hops the search has made before this node
+     * @return the node at which the search ended and the total number of hops
+     * @see RMIInterface#searchNumIDHops(int, int, int, int)
+     */
+    public SearchResult searchNumIDHops(int numID, int targetInt, int level, int hops) throws RemoteException {
+
+        SearchStep step = searchNumIDStep(numID, targetInt, level);
+        if (step.isFinal())
+            return new SearchResult(step.getCurrent(), hops, null);
+
+        // delegate the search to the neighbor found by the step
+        NodeInfo next = step.getNext();
+        RMIInterface nextRMI = getRMI(next.getAddress());
+        try {
+            return nextRMI.searchNumIDHops(next.getNumID(), targetInt, step.getLevel(), hops + 1);
+        } catch (StackOverflowError e) {
+            logger.error("StackOverflow after " + hops + " hops", e);
+            return null;
+        } catch (Exception e) {
+            return new SearchResult(step.getCurrent(), hops, null);
+        }
+    }
+
+    /**
+     * Serves a single hop of a numID search without forwarding it. The node
+     * finds its data node (or main node) closest to the target and answers which
+     * of its neighbors the search should continue on, and at which level.
+     *
+     * @param numID     numerical ID of current node at which the search has arrived
+     * @param targetInt the target of search
+     * @param level     the level of skip graph at which we are searching
+     * @return the node serving this hop and the next hop, if any
+     * @see RMIInterface#searchNumIDStep(int, int, int)
+     */
+    public SearchStep searchNumIDStep(int numID, int targetInt, int level) throws RemoteException {
+
         int num;
-        if (numID != lookup.bufferNumID()) {
+        if (!lookup.isBuffered(numID)) {
             // get the data node (or main node) that is closest to the target search
             num = getBestNum(targetInt);
-//			num = numID;
-            // Add the current node's info to the search list
         } else {
             //logger.debug("Accessing Buffered Node " + RMIPort + " ...");
             num = numID;
         }
-        lst.add(lookup.get(num));
+        NodeInfo current = lookup.get(num);
 
         if (num == targetInt)
-            return lst;
+            return new SearchStep(current, null, level);
+
+        // If the target is greater than the current node then we should search right,
+        // otherwise we should search left
+        int direction = num < targetInt ? Const.RIGHT : Const.LEFT;
+        // Keep going down levels as long as there is either no neighbor in the search
+        // direction, the neighbor has passed the target or it is suspected to have
+        // failed. A suspected neighbor at level zero is still forwarded to, as ending
+        // the search here would report the wrong node, and a neighbor that did fail
+        // makes the search fail instead.
+        NodeInfo next = lookup.get(num, level, direction);
+        while (level >= Const.ZERO_LEVEL && (next == null || passes(next.getNumID(), targetInt, direction)
+                || (level > Const.ZERO_LEVEL && isSuspected(next.getAddress())))) {
+            level--;
+            next = lookup.get(num, level, direction);
+        }
+        // If there are no more levels to go down to the search ends at the current node
+        if (level < Const.ZERO_LEVEL)
+            return new SearchStep(current, null, level);
+        return new SearchStep(current, next, level);
+    }
 
-        // If the target is greater than the current node then we should search right
-        if (num < targetInt) {
-            //logger.debug("Going Right from " + num + " to " + targetInt + "...");
-            // Keep going down levels as long as there is either no right neighbor
-            // or the right neighbor has a numID greater than the target
-            while (level >= Const.ZERO_LEVEL && (lookup.get(num, level, Const.RIGHT) == null
-                    || lookup.get(num, level, Const.RIGHT).getNumID() > targetInt))
-                level--;
-            // If there are no more levels to go down to return the current node
-            if (level < Const.ZERO_LEVEL) {
-                return lst;
+    /**
+     * Serves one hop of several numID searches that arrived at the same node on the
+     * same level, so that searches sharing a route cost one round trip per hop.
+     *
+     * @param numID         numerical ID of current node at which the searches have
+     *                      arrived
+     * @param searchTargets the targets of the searches
+     * @param level         the level of skip graph at which we are searching
+     * @return the step of each search, in the order of searchTargets
+     * @see RMIInterface#searchNumIDSteps(int, int[], int)
+     */
+    public SearchStep[] searchNumIDSteps(int numID, int[] searchTargets, int level) throws RemoteException {
+        SearchStep[] steps = new SearchStep[searchTargets.length];
+        for (int i = 0; i < searchTargets.length; i++)
+            steps[i] = searchNumIDStep(numID, searchTargets[i], level);
+        return steps;
+    }
+
+    /**
+     * @return true if a neighbor with the given numID, reached by moving in the
+     * given direction, is beyond the target of the search
+     */
+    private boolean passes(int neighborNumID, int targetInt, int direction) {
+        return direction == Const.RIGHT ? neighborNumID > targetInt : neighborNumID < targetInt;
+    }
+
+    /**
+     * Executes a numID search that is driven by this node. Instead of every hop
+     * forwarding the search to the next one over RMI, this node asks each hop for
+     * its best next neighbor through {@link #searchNumIDStep(int, int, int)} and
+     * contacts that neighbor itself, so remote nodes serve a single step and return
+     * right away.
+     *
+     * @param searchTarget numerical ID of target of search
+     * @return NodeInfo of the target node if found, or closest node in case it was
+     * not found
+     */
+    public NodeInfo searchByNumIDIterative(int searchTarget) {
+        try {
+            return searchIterative(searchTarget).getNode();
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private SearchResult searchIterative(int searchTarget) throws RemoteException {
+        // route search to closest data node
+        int num = getBestNum(searchTarget);
+        if (lookup.get(num, Const.ZERO_LEVEL, Const.LEFT) == null
+                && lookup.get(num, Const.ZERO_LEVEL, Const.RIGHT) == null) {
+            return new SearchResult(lookup.get(num), 0, null);
+        }
+        SearchStep step = searchNumIDStep(numID, searchTarget, lookup.getMaxLevels());
+        int hops = 0;
+        while (!step.isFinal()) {
+            if (hops >= MAX_SEARCH_HOPS) {
+                logger.error("Search for " + searchTarget + " exceeded " + MAX_SEARCH_HOPS + " hops");
+                break;
             }
-            // delegate the search to the right neighbor
-            RMIInterface rightRMI = getRMI(lookup.get(num, level, Const.RIGHT).getAddress());
+            NodeInfo next = step.getNext();
+            RMIInterface nextRMI = getRMI(next.getAddress());
+            if (nextRMI == null)
+                break;
             try {
-                return rightRMI.searchNumID(lookup.get(num, level, Const.RIGHT).getNumID(), targetInt, level, lst);
-            } catch (StackOverflowError e) {
-                return null;
-            } catch (Exception e) {
-                return lst;
+                step = nextRMI.searchNumIDStep(next.getNumID(), searchTarget, step.getLevel());
+                hops++;
+            } catch (RemoteException e) {
+                // the search ends at the last node that answered
+                logger.debug("Search hop to " + next.getAddress() + " failed: " + e.getMessage());
+                break;
             }
-        } else {
-            // If the target is less than the current node then we should search left
-            //logger.debug("Going Left from " + num + " to " + targetInt + "...");
-            // Keep going down levels as long as there is either no right neighbor
-            // or the left neighbor has a numID greater than the target
-            while (level >= Const.ZERO_LEVEL && (lookup.get(num, level, Const.LEFT) == null
-                    || lookup.get(num, level, Const.LEFT).getNumID() < targetInt))
-                level--;
-            // If there are no more levels to go down to return the current node
-            if (level < Const.ZERO_LEVEL)
-                return lst;
-            // delegate the search to the left neighbor
-            RMIInterface leftRMI = getRMI(lookup.get(num, level, Const.LEFT).getAddress());
-            try {
-                return leftRMI.searchNumID(lookup.get(num, level, Const.LEFT).getNumID(), targetInt, level, lst);
-            } catch (StackOverflowError e) {
-                logger.error("StackOverflow", e);
-                StringBuilder sb = new StringBuilder();
-                for (NodeInfo node : lst)
-                    sb.append(node.getNumID() + " " + node.getAddress() + "\n");
-                logger.error(sb.toString());
-                return null;
-            } catch (Exception e) {
-                return lst;
+        }
+        return new SearchResult(step.getCurrent(), hops, null);
+    }
+
+    /**
+     * Searches for several numIDs at once. The searches are driven iteratively by
+     * this node and advance in rounds: in every round the pending searches whose
+     * next hop is the same node at the same level are sent to it in a single
+     * {@link #searchNumIDSteps(int, int[], int)} call, and the calls to different
+     * nodes are issued in parallel. Targets close to each other share the prefix
+     * of their routes and split at the hop where they diverge, so the whole batch
+     * takes about as many rounds as a single search.
+     *
+     * @param searchTargets numerical IDs of the targets of search
+     * @return for every target, in the same order, the target node if found or the
+     * closest node otherwise. An entry is null if its search failed.
+     */
+    public NodeInfo[] searchByNumIDs(int[] searchTargets) {
+        NodeInfo[] results = new NodeInfo[searchTargets.length];
+        // the last step of every search that has not terminated yet, by its index
+        Map<Integer, SearchStep> pending = new HashMap<>();
+        try {
+            for (int i = 0; i < searchTargets.length; i++) {
+                // route search to closest data node
+                int num = getBestNum(searchTargets[i]);
+                SearchStep step;
+                if (lookup.get(num, Const.ZERO_LEVEL, Const.LEFT) == null
+                        && lookup.get(num, Const.ZERO_LEVEL, Const.RIGHT) == null)
+                    step = new SearchStep(lookup.get(num), null, Const.ZERO_LEVEL);
+                else
+                    step = searchNumIDStep(numID, searchTargets[i], lookup.getMaxLevels());
+                if (step.isFinal())
+                    results[i] = step.getCurrent();
+                else
+                    pending.put(i, step);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return results;
+        }
+
+        int hops = 0;
+        while (!pending.isEmpty()) {
+            if (++hops > MAX_SEARCH_HOPS) {
+                logger.error("Batch search exceeded " + MAX_SEARCH_HOPS + " hops");
+                break;
+            }
+            // group the searches by the node and level of their next hop
+            Map<String, List<Integer>> groups = new HashMap<>();
+            for (Map.Entry<Integer, SearchStep> entry : pending.entrySet()) {
+                SearchStep step = entry.getValue();
+                String hop = step.getNext().getAddress() + "/" + step.getNext().getNumID() + "/" + step.getLevel();
+                groups.computeIfAbsent(hop, k -> new ArrayList<>()).add(entry.getKey());
             }
+            Map<List<Integer>, Future<SearchStep[]>> calls = new HashMap<>();
+            VirtualClock.Fork round = VirtualClock.fork();
+            for (List<Integer> group : groups.values()) {
+                SearchStep step = pending.get(group.get(0));
+                int[] targets = new int[group.size()];
+                for (int i = 0; i < targets.length; i++)
+                    targets[i] = searchTargets[group.get(i)];
+                calls.put(group, EXECUTOR.submit(round.wrap(() -> {
+                    NodeInfo next = step.getNext();
+                    RMIInterface nextRMI = getRMI(next.getAddress());
+                    if (nextRMI == null)
+                        throw new RemoteException("Could not reach " + next.getAddress());
+                    return nextRMI.searchNumIDSteps(next.getNumID(), targets, step.getLevel());
+                })));
+            }
+            for (Map.Entry<List<Integer>, Future<SearchStep[]>> call : calls.entrySet()) {
+                List<Integer> group = call.getKey();
+                SearchStep[] steps;
+                try {
+                    steps = call.getValue().get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    steps = null;
+                } catch (ExecutionException e) {
+                    // the searches of the group end at the last node that answered
+                    logger.debug("Batch search hop failed: " + e.getCause().getMessage());
+                    steps = null;
+                }
+                for (int i = 0; i < group.size(); i++) {
+                    int index = group.get(i);
+                    if (steps == null) {
+                        results[index] = pending.remove(index).getCurrent();
+                    } else if (steps[i].isFinal()) {
+                        results[index] = steps[i].getCurrent();
+                        pending.remove(index);
+                    } else {
+                        pending.put(index, steps[i]);
+                    }
+                }
+            }
+            round.join();
         }
+        for (Map.Entry<Integer, SearchStep> entry : pending.entrySet())
+            results[entry.getKey()] = entry.getValue().getCurrent();
+        return results;
     }
 
     /**
@@ -520,7 +1005,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      * @param direction direction of search
      * @return numerical ID of closest node found
      */
-    public int getBestName(String name, int direction) {
+    public int getBestName(NameID name, int direction) {
         return lookup.getBestName(name, direction);
     }
 
@@ -533,7 +1018,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      *
      * @param searchTarget name ID which we are searching for
      * @return NodeInfo of target if found, or its closest node found
-     * @see RMIInterface#searchByNameID(java.lang.String)
+     * @see RMIInterface#searchByNameID(NameID)
      * <p>
      * TODO: currently, when a numID search for a value that does not exist in
      * the skip graph occurs, the returned result depends on the side from
@@ -541,7 +1026,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      * target, upper bound, if search starts from left of target, lowerbound is
      * returned
      */
-    public NodeInfo searchByNameID(String searchTarget) throws RemoteException {
+    public NodeInfo searchByNameID(NameID searchTarget) throws RemoteException {
         try {
             int bestNum = getBestName(searchTarget, 1);
             NodeInfo ansNode = lookup.get(bestNum);
@@ -587,14 +1072,14 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      * @param level        the level at which search is happening
      * @param direction    direction of search currently
      * @return NodeInfo of result of search
-     * @see RMIInterface#searchName(java.lang.String, int, int)
+     * @see RMIInterface#searchName(int, NameID, int, int)
      */
 
-    public NodeInfo searchName(int numID, String searchTarget, int level, int direction) throws RemoteException {
+    public NodeInfo searchName(int numID, NameID searchTarget, int level, int direction) throws RemoteException {
         //logger.debug("Searching nameID at " + RMIPort + "...");
         try {
             // TODO: handle this after finalizing lookupTable
-            if (numID == lookup.bufferNumID()) {
+            if (lookup.isBuffered(numID)) {
                 // only executes when the buffer node finishes inserting
                 lookup.get(numID, 0, Const.LEFT);
             }
@@ -652,6 +1137,44 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         }
     }
 
+    /**
+     * Links the node being inserted at every level above level 0 in one direction.
+     * At each level the search for the neighbor of the next level starts from the
+     * neighbor found at the current level, until there is none or the top level is
+     * reached.
+     *
+     * @param insertedNode the node being inserted
+     * @param start        the level 0 neighbor of insertedNode in the given direction
+     * @param direction    the direction of the ladder
+     * @param cancelled    set when the insertion failed, which stops the ladder
+     *                     before its next neighbor update
+     */
+    private void climbLadder(NodeInfo insertedNode, NodeInfo start, int direction, AtomicBoolean cancelled)
+            throws RemoteException, FileNotFoundException {
+        NodeInfo node = start;
+        int level = Const.ZERO_LEVEL;
+        while (node != null && level < maxLevels) {
+            RMIInterface nodeRMI = getRMI(node.getAddress());
+            // start search in the given direction
+            NodeInfo found = nodeRMI.insertSearch(level, direction, node.getNumID(), insertedNode.getNameID());
+            if (cancelled.get())
+                return;
+            lookup.put(insertedNode.getNumID(), level + 1, direction, Util.assignNode(found), null);
+
+            // if there is no neighbor at this level then we no longer need to search in
+            // higher levels in this direction
+            if (found != null) {
+                RMIInterface foundRMI = getRMI(found.getAddress());
+                if (direction == Const.LEFT)
+                    foundRMI.setRightNode(found.getNumID(), level + 1, insertedNode, null);
+                else
+                    foundRMI.setLeftNode(found.getNumID(), level + 1, insertedNode, null);
+            }
+            node = found;
+            level++;
+        }
+    }
+
     /**
      * This method receives the numID (Hash Value) of a block and conducts a nameID
      * search on it in order to find all transactions with this nameID. First it
@@ -663,7 +1186,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
      * @param name nameID for which we want to collect nodes that have this name ID
      * @return list of nodes who have the given name as name ID
      */
-    public List<NodeInfo> getNodesWithNameID(String name) {
+    public List<NodeInfo> getNodesWithNameID(NameID name) {
         //logger.debug("Gathering Node batch ...");
         try {
             // find a transaction that has the given nameID
@@ -678,44 +1201,13 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
 
             list.add(ansNode);
 
-            // leftNode and rightNode will store the nodes we are visiting in left
-            // and right respectively
-            NodeInfo leftNode, rightNode;
-            // leftNum and rightNum will store numIDs of left and right nodes, used to
-            // correctly access nodes (data nodes functionality)
-            int leftNumID = Const.UNASSIGNED_INT, rightNumID = Const.UNASSIGNED_INT;
-            // thisRMI is just used to extract information of neighbors
-            RMIInterface thisRMI = getRMI(ansNode.getAddress());
-
-            int ansNodeNumID = ansNode.getNumID();
+            // get the left and right neighbors of the found node in one call
+            NeighborRow row = getRMI(ansNode.getAddress()).getNeighbors(ansNode.getNumID(), maxLevels);
 
-            // get addresses of left and right nodes, as well as their numIDs
-            leftNode = thisRMI.getLeftNode(maxLevels, ansNodeNumID);
-            if (leftNode != null)
-                leftNumID = thisRMI.getLeftNumID(maxLevels, ansNodeNumID);
-
-            rightNode = thisRMI.getRightNode(maxLevels, ansNodeNumID);
-            if (rightNode != null)
-                rightNumID = thisRMI.getRightNumID(maxLevels, ansNodeNumID);
-
-            // now in the last level of the skip graph, we go left and right
-            while (leftNode != null) {
-                RMIInterface leftRMI = getRMI(leftNode.getAddress());
-                NodeInfo curNode = leftRMI.getNode(leftNumID);
-                list.add(curNode);
-                leftNode = leftRMI.getLeftNode(lookup.getMaxLevels(), leftNumID);
-                if (leftNode != null)
-                    leftNumID = leftRMI.getLeftNumID(lookup.getMaxLevels(), leftNumID);
-            }
-            while (rightNode != null) {
-                RMIInterface rightRMI = getRMI(rightNode.getAddress());
-                NodeInfo curNode = rightRMI.getNode(rightNumID);
-                list.add(curNode);
-                // now go to the right node again
-                rightNode = rightRMI.getRightNode(lookup.getMaxLevels(), rightNumID);
-                if (rightNode != null)
-                    rightNumID = rightRMI.getRightNumID(lookup.getMaxLevels(), rightNumID);
-            }
+            // now in the last level of the skip graph, we go left and right, getting
+            // each visited node and its next neighbor in one call
+            walkLevel(row.getLeft(), Const.LEFT, list);
+            walkLevel(row.getRight(), Const.RIGHT, list);
             return list;
         } catch (Exception e) {
             e.printStackTrace();
@@ -724,29 +1216,88 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
     }
 
     /**
-     * This method returns an RMI instance of the node with the given address
+     * Walks the top level of the skip graph in the given direction, starting at the
+     * given node, and adds every visited node to the list.
+     *
+     * @param start     the first node to visit, or null if there is none
+     * @param direction the direction of the walk
+     * @param list      the list the visited nodes are added to
+     */
+    private void walkLevel(NodeInfo start, int direction, List<NodeInfo> list) throws RemoteException {
+        NodeInfo cur = start;
+        while (cur != null) {
+            NeighborRow row = getRMI(cur.getAddress()).getNeighbors(cur.getNumID(), lookup.getMaxLevels());
+            // the node was deleted while walking the level
+            if (row.getNode() == null)
+                break;
+            list.add(row.getNode());
+            cur = row.getNeighbor(direction);
+        }
+    }
+
+    /**
+     * This method returns an RMI instance of the node with the given address. Stubs
+     * are served from the node's stub cache and only looked up in the registry of
+     * the given address on a miss.
      *
      * @param adrs address to connection is requested
      * @return instance of RMIInterface enabling an RMI connection to given address
      */
     public RMIInterface getRMI(String adrs) {
 
-        if (!Util.validateIP(adrs)) {
-            //logger.debug("Error in lookup up RMI. Address " + adrs + " is not a valid address");
+        if (adrs != null && adrs.equalsIgnoreCase(address))
+            return this;
+
+        RMIInterface stub = (RMIInterface) stubCache.lookup(adrs);
+        FailureDetector detector = failureDetector;
+        if (stub == null) {
+            if (detector != null && adrs != null)
+                detector.onFailure(adrs);
             return null;
         }
+        if (detector != null)
+            stub = detector.monitor(adrs, stub);
+        if (delayMode == DelayMode.NONE)
+            return stub;
+        return delayed(stub, adrs);
+    }
 
-        if (adrs.equalsIgnoreCase(address))
-            return this;
+    /**
+     * @param adrs address of a node
+     * @return true if the failure detector of this node suspects the node at the
+     * given address, false if it does not or failure detection is off
+     */
+    public boolean isSuspected(String adrs) {
+        FailureDetector detector = failureDetector;
+        return detector != null && detector.isSuspected(adrs);
+    }
 
-        try {
-            return (RMIInterface) Naming.lookup("//" + adrs + "/RMIImpl");
+    /**
+     * Wraps a stub so that its calls are delayed by the emulated latency between
+     * this node and the given address.
+     *
+     * @param stub the stub of the node at adrs
+     * @param adrs the address of the node
+     * @return the delayed stub
+     */
+    protected RMIInterface delayed(RMIInterface stub, String adrs) {
+        return new SkipNodeDelayWrapper(stub, address, adrs, delayMode == DelayMode.VIRTUAL);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            return null;
-        }
+    /**
+     * @return how many neighbor updates of this node's lookup table found a
+     * neighbor other than the expected one
+     * @see LookupTable#getContentionCount()
+     */
+    public long getLookupContentionCount() {
+        return lookup.getContentionCount();
+    }
 
+    /**
+     * @return the cache of stubs used by this node to reach other nodes
+     */
+    public StubCache getStubCache() {
+        return stubCache;
     }
 
     /**
@@ -797,6 +1348,109 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         return peerNode;
     }
 
+    public boolean isIterativeSearch() {
+        return iterativeSearch;
+    }
+
+    /**
+     * Selects how searches started by this node are routed: iteratively, with this
+     * node driving every hop, or recursively, with every hop forwarding the search.
+     *
+     * @param iterativeSearch true to use iterative searches
+     */
+    public void setIterativeSearch(boolean iterativeSearch) {
+        this.iterativeSearch = iterativeSearch;
+    }
+
+    /**
+     * Starts repairing the links of the data nodes of this node in the background,
+     * checking at most {@link Stabilizer#DEFAULT_LINKS_PER_ROUND} links every
+     * period. Does nothing if stabilization already runs.
+     *
+     * @param periodMillis time between two rounds of stabilization
+     * @return the stabilizer of this node, whose counters report the repairs
+     */
+    public synchronized Stabilizer startStabilizer(long periodMillis) {
+        if (stabilizer == null)
+            stabilizer = new Stabilizer(this, lookup, Stabilizer.DEFAULT_LINKS_PER_ROUND);
+        stabilizer.start(periodMillis);
+        return stabilizer;
+    }
+
+    /**
+     * Stops the background repair of links, if it runs.
+     */
+    public synchronized void stopStabilizer() {
+        if (stabilizer != null)
+            stabilizer.stop();
+    }
+
+    /**
+     * @return the stabilizer of this node, or null if stabilization was never
+     * started
+     */
+    public synchronized Stabilizer getStabilizer() {
+        return stabilizer;
+    }
+
+    /**
+     * Starts detecting failures of the nodes this node calls: calls made through
+     * {@link #getRMI(String)} are bounded by adaptive timeouts, and searches route
+     * around suspected nodes. Does nothing if detection already runs.
+     *
+     * @param heartbeatMillis time between two heartbeats to the neighbors of the
+     *                        data nodes of this node, 0 for no heartbeats
+     * @return the failure detector of this node
+     */
+    public synchronized FailureDetector startFailureDetector(long heartbeatMillis) {
+        if (failureDetector == null) {
+            failureDetector = new FailureDetector();
+            if (heartbeatMillis > 0)
+                failureDetector.startHeartbeats(heartbeatMillis, this::neighborAddresses, this::getRMI);
+        }
+        return failureDetector;
+    }
+
+    /**
+     * @return the failure detector of this node, or null if failure detection was
+     * never started
+     */
+    public FailureDetector getFailureDetector() {
+        return failureDetector;
+    }
+
+    /**
+     * @return the addresses of the other nodes holding a neighbor of a data node
+     * of this node, at any level
+     */
+    private Collection<String> neighborAddresses() {
+        Set<String> addresses = new HashSet<>();
+        for (int num : lookup.keySet()) {
+            for (int level = 0; level <= lookup.getMaxLevels(); level++) {
+                for (int direction : new int[] { Const.LEFT, Const.RIGHT }) {
+                    NodeInfo neighbor = lookup.get(num, level, direction);
+                    if (neighbor != null && !neighbor.getAddress().equalsIgnoreCase(address))
+                        addresses.add(neighbor.getAddress());
+                }
+            }
+        }
+        return addresses;
+    }
+
+    public DelayMode getDelayMode() {
+        return delayMode;
+    }
+
+    /**
+     * Selects how the latency between this node and the nodes it calls is
+     * emulated.
+     *
+     * @param delayMode the emulation of latency on the calls of this node
+     */
+    public void setDelayMode(DelayMode delayMode) {
+        this.delayMode = delayMode;
+    }
+
     public NodeInfo getPeerLeftNode(int level) {
         return lookup.get(numID, level, Const.LEFT);
     }
@@ -830,7 +1484,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         return numID;
     }
 
-    public String getNameID() {
+    public NameID getNameID() {
         return nameID;
     }
 
@@ -850,7 +1504,7 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         numID = num;
     }
 
-    protected void setNameID(String s) {
+    protected void setNameID(NameID s) {
         nameID = s;
     }
 
@@ -862,11 +1516,11 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         return lookup.get(num, level, Const.RIGHT).getNumID();
     }
 
-    public String getLeftNameID(int level, int num) {
+    public NameID getLeftNameID(int level, int num) {
         return lookup.get(num, level, Const.LEFT).getNameID();
     }
 
-    public String getRightNameID(int level, int num) {
+    public NameID getRightNameID(int level, int num) {
         return lookup.get(num, level, Const.RIGHT).getNameID();
     }
 
@@ -874,6 +1528,21 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         return lookup.get(num);
     }
 
+    /**
+     * Returns the data node with the given numID together with its neighbors at the
+     * given level, so that a walk over that level needs one call per visited node.
+     *
+     * @param num   numID of the data node
+     * @param level level of the neighbors
+     * @return the row of the data node, whose node is null if it does not exist
+     */
+    public NeighborRow getNeighbors(int num, int level) {
+        NodeInfo node = lookup.get(num);
+        if (node == null)
+            return new NeighborRow(null, null, null, level);
+        return new NeighborRow(node, lookup.get(num, level, Const.LEFT), lookup.get(num, level, Const.RIGHT), level);
+    }
+
     ///////////////////////////////////////////////////////////////////////////////////////////////////
     // For Testing purposes
     protected static int configurationsLeft = 0;
@@ -960,9 +1629,9 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         long afrTime;
         while (freq-- > 0) {
             try {
-                befTime = System.currentTimeMillis();
+                befTime = VirtualClock.currentTimeMillis();
                 nodeToPing.ping();
-                afrTime = System.currentTimeMillis();
+                afrTime = VirtualClock.currentTimeMillis();
                 lg.Log((double) afrTime - befTime);
             } catch (RemoteException e) {
                 e.printStackTrace();
@@ -1042,4 +1711,23 @@ public class SkipNode extends UnicastRemoteObject implements RMIInterface {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * A neighbor of a remote node set by an insertion, with the neighbor it
+     * replaced.
+     */
+    private static final class RemoteLink {
+        private final NodeInfo node;
+        private final int level;
+        private final int direction;
+        private final NodeInfo linked;
+        private final NodeInfo old;
+
+        private RemoteLink(NodeInfo node, int level, int direction, NodeInfo linked, NodeInfo old) {
+            this.node = node;
+            this.level = level;
+            this.direction = direction;
+            this.linked = linked;
+            this.old = old;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package skipGraph;
+
+import java.util.Arrays;
+
+/**
+ * A set of ints kept in a sorted primitive array, answering closest value
+ * queries with a binary search.
+ * <p>
+ * Writers copy the array under the set's monitor and publish the new copy
+ * through a volatile field, so readers never block and always see a consistent
+ * snapshot. This suits the data nodes of a skip node, which are read on every
+ * search hop but only change when a node is inserted or deleted.
+ */
+public class SortedIntSet {
+
+    private static final int[] EMPTY = new int[0];
+
+    private volatile int[] values = EMPTY;
+
+    /**
+     * @return true if the value was not in the set before
+     */
+    public synchronized boolean add(int value) {
+        int[] cur = values;
+        int idx = Arrays.binarySearch(cur, value);
+        if (idx >= 0)
+            return false;
+        int pos = -idx - 1;
+        int[] next = new int[cur.length + 1];
+        System.arraycopy(cur, 0, next, 0, pos);
+        next[pos] = value;
+        System.arraycopy(cur, pos, next, pos + 1, cur.length - pos);
+        values = next;
+        return true;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    public synchronized boolean remove(int value) {
+        int[] cur = values;
+        int pos = Arrays.binarySearch(cur, value);
+        if (pos < 0)
+            return false;
+        int[] next = new int[cur.length - 1];
+        System.arraycopy(cur, 0, next, 0, pos);
+        System.arraycopy(cur, pos + 1, next, pos, cur.length - pos - 1);
+        values = next;
+        return true;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the value of the set that is closest to the given one. When two
+     * values are equally close, the smaller one is returned.
+     *
+     * @param value the value to approach
+     * @param def   the value returned if the set is empty
+     * @return the closest value of the set, or def if the set is empty
+     */
+    public int closest(int value, int def) {
+        int[] cur = values;
+        if (cur.length == 0)
+            return def;
+        int idx = Arrays.binarySearch(cur, value);
+        if (idx >= 0)
+            return cur[idx];
+        int pos = -idx - 1;
+        if (pos == 0)
+            return cur[0];
+        if (pos == cur.length)
+            return cur[cur.length - 1];
+        int lower = cur[pos - 1];
+        int upper = cur[pos];
+        return (long) value - lower <= (long) upper - value ? lower : upper;
+    }
+
+    /**
+     * @return the smallest value of the set, or def if the set is empty
+     */
+    public int first(int def) {
+        int[] cur = values;
+        return cur.length == 0 ? def : cur[0];
+    }
+
+    /**
+     * @return the largest value of the set, or def if the set is empty
+     */
+    public int last(int def) {
+        int[] cur = values;
+        return cur.length == 0 ? def : cur[cur.length - 1];
+    }
+}
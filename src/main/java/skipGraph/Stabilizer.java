@@ -0,0 +1,348 @@
+package skipGraph;
+
+import org.apache.log4j.Logger;
+import util.Const;
+import util.Util;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically checks the links of the data nodes of a skip node against the
+ * neighbors they point to, and repairs the links left broken by failed
+ * insertions, crashed nodes or lost neighbor updates.
+ * <p>
+ * A link from a node to its right neighbor at some level is consistent when the
+ * left neighbor of that neighbor at the same level is the node, and the other
+ * way around. When it is not, whichever of the two nodes is closer wins: if the
+ * neighbor points past the node, the neighbor is pointed back at the node, and
+ * if the neighbor points to a node in between, the link moves to that node. A
+ * neighbor that cannot be reached, or no longer holds the data node, is replaced
+ * by the next node at its level, found by walking the level below it, or for
+ * level zero by walking back from a farther neighbor. Every repair is a
+ * compare-and-set, so it never overwrites a concurrent update.
+ * <p>
+ * Each round checks a bounded number of links, continuing from where the
+ * previous round stopped, so that the remote calls of stabilization stay
+ * bounded however many data nodes the skip node holds.
+ */
+public class Stabilizer {
+
+    // number of links checked per round by default
+    public static final int DEFAULT_LINKS_PER_ROUND = 64;
+    // upper bound on the nodes visited while looking for a replacement neighbor
+    private static final int MAX_WALK = 64;
+
+    private static final ScheduledExecutorService SCHEDULER = newScheduler();
+
+    private final SkipNode node;
+    private final LookupTable lookup;
+    private final int linksPerRound;
+    private final Logger logger;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong asymmetricRepairs = new AtomicLong();
+    private final AtomicLong danglingRepairs = new AtomicLong();
+    private final AtomicLong failedRepairs = new AtomicLong();
+
+    // position of the next link to check, over data nodes, levels and directions
+    private int cursor;
+    private ScheduledFuture<?> task;
+
+    /**
+     * @param node          the skip node whose links are checked
+     * @param lookup        the lookup table of the node
+     * @param linksPerRound the most links checked per round
+     */
+    Stabilizer(SkipNode node, LookupTable lookup, int linksPerRound) {
+        this.node = node;
+        this.lookup = lookup;
+        this.linksPerRound = linksPerRound;
+        this.logger = Logger.getLogger(node.getRMIPort() + "");
+    }
+
+    /**
+     * Runs a round every periodMillis milliseconds, starting after a random part
+     * of the first period so that the rounds of different nodes are spread out.
+     *
+     * @param periodMillis time between the end of a round and the start of the next
+     */
+    public synchronized void start(long periodMillis) {
+        if (task != null)
+            return;
+        long initialDelay = ThreadLocalRandom.current().nextLong(periodMillis) + 1;
+        task = SCHEDULER.scheduleWithFixedDelay(() -> {
+            try {
+                runRound();
+            } catch (RuntimeException e) {
+                logger.error("Stabilization round failed", e);
+            }
+        }, initialDelay, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the periodic rounds. A round in progress is finished.
+     */
+    public synchronized void stop() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * Checks and repairs the next links of the node, at most linksPerRound of
+     * them.
+     *
+     * @return the number of links repaired in this round
+     */
+    public synchronized int runRound() {
+        List<Integer> numIDs = new ArrayList<>(lookup.keySet());
+        Collections.sort(numIDs);
+        int linksPerNode = 2 * (lookup.getMaxLevels() + 1);
+        int total = numIDs.size() * linksPerNode;
+        if (total == 0)
+            return 0;
+        int repairs = 0;
+        for (int i = 0; i < Math.min(linksPerRound, total); i++) {
+            int link = cursor++ % total;
+            int num = numIDs.get(link / linksPerNode);
+            int level = (link % linksPerNode) / 2;
+            int direction = link % 2 == 0 ? Const.LEFT : Const.RIGHT;
+            if (checkLink(num, level, direction))
+                repairs++;
+        }
+        cursor %= total;
+        return repairs;
+    }
+
+    /**
+     * Checks the link of a data node at the given level and direction against the
+     * neighbor it points to, and repairs it if needed.
+     *
+     * @return true if the link was repaired
+     */
+    private boolean checkLink(int num, int level, int direction) {
+        // a node being inserted is linked by its insertion, and reading its table
+        // would wait for the insertion to end
+        if (lookup.isBuffered(num))
+            return false;
+        NodeInfo self = lookup.get(num);
+        NodeInfo neighbor = lookup.get(num, level, direction);
+        if (self == null || neighbor == null)
+            return false;
+        checks.incrementAndGet();
+        int back = opposite(direction);
+        NeighborRow row = neighbors(neighbor, level);
+        if (row == null || row.getNode() == null)
+            return replaceDangling(self, level, direction, neighbor);
+
+        NodeInfo backLink = row.getNeighbor(back);
+        if (self.equals(backLink))
+            return false;
+        // only nodes sharing the prefix of the level belong to the same list
+        if (Util.commonBits(self.getNameID(), neighbor.getNameID()) < level)
+            return false;
+        if (backLink != null && isBetween(backLink, self, neighbor)) {
+            // a node was inserted in between, which this node missed
+            if (!lookup.put(num, level, direction, backLink, neighbor))
+                return false;
+            asymmetricRepairs.incrementAndGet();
+            logger.debug("Moved the " + name(direction) + " link of " + num + " at level " + level + " from "
+                    + neighbor.getNumID() + " to " + backLink.getNumID());
+            return true;
+        }
+        // the neighbor points past this node, or to no node at all
+        try {
+            RMIInterface neighborRMI = node.getRMI(neighbor.getAddress());
+            if (neighborRMI == null)
+                return false;
+            boolean repaired = direction == Const.RIGHT
+                    ? neighborRMI.setLeftNode(neighbor.getNumID(), level, self, backLink)
+                    : neighborRMI.setRightNode(neighbor.getNumID(), level, self, backLink);
+            if (!repaired)
+                return false;
+        } catch (RemoteException e) {
+            failedRepairs.incrementAndGet();
+            return false;
+        }
+        asymmetricRepairs.incrementAndGet();
+        logger.debug("Pointed the " + name(back) + " link of " + neighbor.getNumID() + " at level " + level
+                + " back to " + num);
+        return true;
+    }
+
+    /**
+     * Replaces a neighbor that cannot be reached with the next node in the same
+     * direction at the same level.
+     *
+     * @return true if the link was repaired
+     */
+    private boolean replaceDangling(NodeInfo self, int level, int direction, NodeInfo dead) {
+        NodeInfo replacement;
+        try {
+            replacement = level > 0 ? walkLowerLevel(self, level, direction, dead)
+                    : walkBack(self, direction, dead);
+        } catch (RemoteException e) {
+            replacement = dead;
+        }
+        if (replacement == dead) {
+            failedRepairs.incrementAndGet();
+            return false;
+        }
+        if (!lookup.put(self.getNumID(), level, direction, replacement, dead))
+            return false;
+        if (replacement != null) {
+            // the replacement most likely points to the dead node as well
+            try {
+                RMIInterface rmi = node.getRMI(replacement.getAddress());
+                if (rmi != null) {
+                    if (direction == Const.RIGHT)
+                        rmi.setLeftNode(replacement.getNumID(), level, self, dead);
+                    else
+                        rmi.setRightNode(replacement.getNumID(), level, self, dead);
+                }
+            } catch (RemoteException e) {
+                // the next round checks the new link again
+            }
+        }
+        danglingRepairs.incrementAndGet();
+        logger.debug("Replaced the unreachable " + name(direction) + " neighbor " + dead.getNumID() + " of "
+                + self.getNumID() + " at level " + level + " with "
+                + (replacement == null ? "null" : replacement.getNumID()));
+        return true;
+    }
+
+    /**
+     * Walks the level below the given one from self, until the first node sharing
+     * enough of the nameID of self to be its neighbor at the given level.
+     *
+     * @return the replacement, null if there is no node in that direction, or dead
+     * if the walk did not come to an end
+     */
+    private NodeInfo walkLowerLevel(NodeInfo self, int level, int direction, NodeInfo dead)
+            throws RemoteException {
+        NodeInfo cur = lookup.get(self.getNumID(), level - 1, direction);
+        for (int i = 0; i < MAX_WALK; i++) {
+            if (cur == null)
+                return null;
+            if (cur.equals(dead))
+                return dead;
+            if (Util.commonBits(cur.getNameID(), self.getNameID()) >= level)
+                return cur;
+            NeighborRow row = neighbors(cur, level - 1);
+            if (row == null || row.getNode() == null)
+                return dead;
+            cur = row.getNeighbor(direction);
+        }
+        return dead;
+    }
+
+    /**
+     * Finds the closest reachable neighbor of self in the given direction at a
+     * higher level, and walks level zero back from it towards self, until the
+     * node whose next node back cannot be reached.
+     *
+     * @return the replacement, or dead if none was found
+     */
+    private NodeInfo walkBack(NodeInfo self, int direction, NodeInfo dead) throws RemoteException {
+        NodeInfo cur = null;
+        for (int level = 1; level <= lookup.getMaxLevels() && cur == null; level++) {
+            NodeInfo far = lookup.get(self.getNumID(), level, direction);
+            if (far != null && !far.equals(dead) && neighbors(far, Const.ZERO_LEVEL) != null)
+                cur = far;
+        }
+        if (cur == null)
+            return dead;
+        int back = opposite(direction);
+        for (int i = 0; i < MAX_WALK; i++) {
+            NeighborRow row = neighbors(cur, Const.ZERO_LEVEL);
+            if (row == null || row.getNode() == null)
+                return dead;
+            NodeInfo prev = row.getNeighbor(back);
+            if (prev == null || prev.equals(dead) || prev.equals(self) || !isBetween(prev, self, cur))
+                return cur;
+            NeighborRow prevRow = neighbors(prev, Const.ZERO_LEVEL);
+            if (prevRow == null || prevRow.getNode() == null)
+                return cur;
+            cur = prev;
+        }
+        return dead;
+    }
+
+    /**
+     * @return the row of the given node at the given level, or null if the node
+     * cannot be reached
+     */
+    private NeighborRow neighbors(NodeInfo target, int level) {
+        try {
+            RMIInterface rmi = node.getRMI(target.getAddress());
+            if (rmi == null)
+                return null;
+            return rmi.getNeighbors(target.getNumID(), level);
+        } catch (RemoteException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if the numID of mid lies strictly between those of a and b
+     */
+    private static boolean isBetween(NodeInfo mid, NodeInfo a, NodeInfo b) {
+        int low = Math.min(a.getNumID(), b.getNumID());
+        int high = Math.max(a.getNumID(), b.getNumID());
+        return mid.getNumID() > low && mid.getNumID() < high;
+    }
+
+    private static int opposite(int direction) {
+        return direction == Const.LEFT ? Const.RIGHT : Const.LEFT;
+    }
+
+    private static String name(int direction) {
+        return direction == Const.LEFT ? "left" : "right";
+    }
+
+    /**
+     * @return the number of links checked
+     */
+    public long getChecks() {
+        return checks.get();
+    }
+
+    /**
+     * @return the number of links repaired because they did not point back
+     */
+    public long getAsymmetricRepairs() {
+        return asymmetricRepairs.get();
+    }
+
+    /**
+     * @return the number of links repaired because their neighbor could not be
+     * reached
+     */
+    public long getDanglingRepairs() {
+        return danglingRepairs.get();
+    }
+
+    /**
+     * @return the number of broken links that could not be repaired
+     */
+    public long getFailedRepairs() {
+        return failedRepairs.get();
+    }
+
+    private static ScheduledExecutorService newScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2), Util.daemonThreadFactory("stabilizer"));
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+}
@@ -0,0 +1,166 @@
+package skipGraph;
+
+import org.apache.log4j.Logger;
+import transport.Transport;
+import util.ExpiringCache;
+import util.Util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.ConnectException;
+import java.rmi.ConnectIOException;
+import java.rmi.NoSuchObjectException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.UnknownHostException;
+import java.rmi.UnmarshalException;
+
+/**
+ * Caches the stubs a node has looked up through its transport, keyed by the
+ * address of the remote node, so that repeated calls to the same node do not go
+ * through address validation and a lookup round trip every time.
+ * <p>
+ * Cached stubs are wrapped so that a call failing in the transport (the node
+ * could not be reached, its reply could not be read, or it was restarted and no
+ * longer exports the stub's object) evicts the stub, and the next lookup of that
+ * address goes back to the transport. Other failures, such as a
+ * {@link java.rmi.ServerException} thrown by the remote node itself, show the
+ * node is alive and keep the stub.
+ */
+public class StubCache {
+
+    // default bounds of the cache
+    public static final int DEFAULT_MAX_SIZE = 1024;
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60 * 1000;
+
+    private final Transport transport;
+    private final ExpiringCache<String, Remote> stubs;
+    private final Logger logger;
+
+    /**
+     * @param transport the transport stubs are looked up through
+     */
+    public StubCache(Transport transport) {
+        this(transport, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    /**
+     * @param transport the transport stubs are looked up through
+     * @param maxSize   maximum number of stubs kept
+     * @param ttlMillis time after which a stub is looked up again
+     */
+    public StubCache(Transport transport, int maxSize, long ttlMillis) {
+        this.transport = transport;
+        this.stubs = new ExpiringCache<>(maxSize, ttlMillis);
+        this.logger = Logger.getLogger(StubCache.class);
+    }
+
+    /**
+     * Returns the stub of the node at the given address, looking it up through the
+     * transport if it is not cached. In-process transports are always asked
+     * directly, as their lookups are cheaper than the cache.
+     *
+     * @param adrs address of the remote node
+     * @return the stub, or null if the address is invalid or the lookup failed
+     */
+    public Remote lookup(String adrs) {
+        if (transport.isInProcess()) {
+            try {
+                return transport.lookup(adrs);
+            } catch (RemoteException e) {
+                logger.debug("Error in lookup of " + adrs + ": " + e.getMessage());
+                return null;
+            }
+        }
+
+        Remote stub = stubs.get(adrs);
+        if (stub != null)
+            return stub;
+
+        if (!Util.validateIP(adrs)) {
+            logger.debug("Error in lookup up RMI. Address " + adrs + " is not a valid address");
+            return null;
+        }
+
+        try {
+            Remote remote = transport.lookup(adrs);
+            stub = evicting(adrs, remote);
+            stubs.put(adrs, stub);
+            return stub;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Drops the cached stub of the given address.
+     */
+    public void evict(String adrs) {
+        stubs.evict(adrs);
+    }
+
+    public int size() {
+        return stubs.size();
+    }
+
+    public long getHits() {
+        return stubs.getHits();
+    }
+
+    public long getMisses() {
+        return stubs.getMisses();
+    }
+
+    public long getEvictions() {
+        return stubs.getEvictions();
+    }
+
+    /**
+     * Wraps the stub into a proxy implementing the same remote interfaces, which
+     * evicts it from the cache when one of its calls fails remotely.
+     */
+    private Remote evicting(String adrs, Remote remote) {
+        Class<?>[] interfaces = remote.getClass().getInterfaces();
+        EvictingHandler handler = new EvictingHandler(adrs, remote);
+        Remote proxy = (Remote) Proxy.newProxyInstance(RMIInterface.class.getClassLoader(), interfaces, handler);
+        handler.proxy = proxy;
+        return proxy;
+    }
+
+    /**
+     * @return true if the failure of a call shows the stub may be stale: the node
+     * could not be reached, its reply could not be read, or it no longer exports
+     * the object of the stub
+     */
+    private static boolean isTransportFailure(Throwable failure) {
+        return failure instanceof ConnectException || failure instanceof ConnectIOException
+                || failure instanceof NoSuchObjectException || failure instanceof UnmarshalException
+                || failure instanceof UnknownHostException;
+    }
+
+    private class EvictingHandler implements InvocationHandler {
+        private final String adrs;
+        private final Remote remote;
+        private Remote proxy;
+
+        private EvictingHandler(String adrs, Remote remote) {
+            this.adrs = adrs;
+            this.remote = remote;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(remote, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (isTransportFailure(cause))
+                    stubs.evict(adrs, proxy);
+                throw cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package transport;
+
+import skipGraph.NameID;
+import skipGraph.NodeInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes the arguments and results of remote calls for {@link NIOTransport}.
+ * Every value starts with a tag byte. The types most calls carry (numbers,
+ * strings, numID arrays, nameIDs and plain nodes) are written field by field,
+ * and any other value falls back to Java serialization, which the compact
+ * formats of blocks and transactions plug into.
+ * <p>
+ * Serialized values come from any peer, so only the classes of the nodes and
+ * their messages, and the basic classes of the JDK they are made of, are
+ * deserialized; any other class fails the read before it is loaded.
+ */
+final class Codec {
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte STRING = 4;
+    private static final byte INT_ARRAY = 5;
+    private static final byte NAME_ID = 6;
+    private static final byte NODE_INFO = 7;
+    private static final byte OBJECT = 8;
+
+    // packages and classes that serialized values may be made of
+    private static final String[] SERIALIZABLE_PREFIXES = { "blockchain.", "skipGraph.", "signature.",
+            "remoteTest.", "simulation.", "java.lang.", "java.util.", "java.io.", "java.net.", "java.rmi.",
+            "java.security.KeyRep" };
+    // parts of the packages above that are never deserialized
+    private static final String[] REJECTED_PREFIXES = { "java.lang.invoke.", "java.lang.reflect." };
+
+    private Codec() {
+    }
+
+    static void write(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof String) {
+            byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof int[]) {
+            int[] values = (int[]) value;
+            out.writeByte(INT_ARRAY);
+            out.writeInt(values.length);
+            for (int v : values)
+                out.writeInt(v);
+        } else if (value instanceof NameID) {
+            out.writeByte(NAME_ID);
+            NameID.write(out, (NameID) value);
+        } else if (value.getClass() == NodeInfo.class) {
+            // only plain nodes, blocks and transactions carry more fields
+            NodeInfo node = (NodeInfo) value;
+            out.writeByte(NODE_INFO);
+            write(out, node.getAddress());
+            out.writeInt(node.getNumID());
+            NameID.write(out, node.getNameID());
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            out.writeByte(OBJECT);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    static Object read(DataInputStream in) throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case INT:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case BOOLEAN:
+                return in.readBoolean();
+            case STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case INT_ARRAY: {
+                int[] values = new int[readLength(in)];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = in.readInt();
+                return values;
+            }
+            case NAME_ID:
+                return NameID.read(in);
+            case NODE_INFO: {
+                String address = (String) read(in);
+                int numID = in.readInt();
+                return new NodeInfo(address, numID, NameID.read(in));
+            }
+            case OBJECT:
+                try (ObjectInputStream objects = new FilteredObjectInputStream(
+                        new ByteArrayInputStream(readBytes(in)))) {
+                    return objects.readObject();
+                }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    /**
+     * @return true if values of the class with the given name may be deserialized
+     */
+    static boolean isSerializable(String name) {
+        // arrays are allowed if their elements are
+        int dims = 0;
+        while (dims < name.length() && name.charAt(dims) == '[')
+            dims++;
+        if (dims > 0) {
+            if (name.charAt(dims) != 'L')
+                return name.length() == dims + 1;
+            name = name.substring(dims + 1, name.length() - 1);
+        }
+        for (String prefix : REJECTED_PREFIXES) {
+            if (name.startsWith(prefix))
+                return false;
+        }
+        for (String prefix : SERIALIZABLE_PREFIXES) {
+            if (name.startsWith(prefix))
+                return true;
+        }
+        return false;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readLength(in)];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available())
+            throw new IOException("Invalid length " + length);
+        return length;
+    }
+
+    /**
+     * Deserializes only the classes {@link #isSerializable(String)} allows, and no
+     * proxies.
+     */
+    private static final class FilteredObjectInputStream extends ObjectInputStream {
+
+        private FilteredObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            if (!isSerializable(desc.getName()))
+                throw new InvalidClassException(desc.getName(), "Class is not accepted from peers");
+            return super.resolveClass(desc);
+        }
+
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+            throw new InvalidClassException("Proxies are not accepted from peers");
+        }
+    }
+}
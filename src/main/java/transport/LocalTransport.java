@@ -0,0 +1,134 @@
+package transport;
+
+import util.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.rmi.ConnectException;
+import java.rmi.MarshalException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.server.ExportException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An in-process transport for simulations hosting all their nodes in one JVM.
+ * Exporting a node only records it under its port, and looking an address up
+ * resolves to the node exported on that port, so calls between nodes never
+ * touch the network stack and ports are mere identifiers.
+ * <p>
+ * Without copy on call, lookups return the nodes themselves and calls are plain
+ * method calls: arguments and results are shared between the caller and the
+ * callee. With copy on call, lookups return a proxy that passes copies of the
+ * arguments and results, preserving the pass-by-value semantics of the other
+ * transports at the cost of serializing them.
+ * <p>
+ * All the local transports of a JVM share the nodes exported on them.
+ */
+public class LocalTransport implements Transport {
+
+    // the nodes exported in this JVM, by port
+    private static final Map<Integer, Remote> nodes = new ConcurrentHashMap<>();
+
+    private final boolean copyOnCall;
+
+    /**
+     * @param copyOnCall true to pass copies of the arguments and results of calls
+     *                   instead of sharing them
+     */
+    public LocalTransport(boolean copyOnCall) {
+        this.copyOnCall = copyOnCall;
+    }
+
+    @Override
+    public void export(Remote node, int port) throws RemoteException {
+        if (nodes.putIfAbsent(port, node) != null)
+            throw new ExportException("Port " + port + " is already taken");
+    }
+
+    @Override
+    public Remote lookup(String adrs) throws RemoteException {
+        if (!Util.validateIP(adrs))
+            throw new RemoteException("Invalid address " + adrs);
+        Remote node = nodes.get(Integer.parseInt(adrs.substring(adrs.lastIndexOf(':') + 1)));
+        if (node == null)
+            throw new ConnectException("No node is exported at " + adrs);
+        if (!copyOnCall)
+            return node;
+        return (Remote) Proxy.newProxyInstance(Transport.class.getClassLoader(), Transports.remoteInterfaces(node.getClass()),
+                new Copier(node));
+    }
+
+    /**
+     * Lookups cost a map access, so their results need not be cached.
+     */
+    @Override
+    public boolean isInProcess() {
+        return true;
+    }
+
+    public boolean isCopyOnCall() {
+        return copyOnCall;
+    }
+
+    /**
+     * @return a deep copy of the object made by serializing it
+     */
+    private static Object copy(Object obj) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(obj);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return in.readObject();
+        }
+    }
+
+    private static class Copier implements InvocationHandler {
+        private final Remote node;
+
+        private Copier(Remote node) {
+            this.node = node;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "Local reference to " + node;
+                }
+            }
+            Object[] copies;
+            try {
+                // copied together, so arguments sharing an object still share its copy
+                copies = args == null ? null : (Object[]) copy(args);
+            } catch (IOException | ClassNotFoundException e) {
+                throw new MarshalException("Could not copy the arguments of " + method.getName(), e);
+            }
+            Object result;
+            try {
+                result = method.invoke(node, copies);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            try {
+                return copy(result);
+            } catch (IOException | ClassNotFoundException e) {
+                throw new MarshalException("Could not copy the result of " + method.getName(), e);
+            }
+        }
+    }
+}
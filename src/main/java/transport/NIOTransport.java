@@ -0,0 +1,754 @@
+package transport;
+
+import org.apache.log4j.Logger;
+import util.Util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.rmi.ConnectException;
+import java.rmi.MarshalException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.UnexpectedException;
+import java.rmi.server.ExportException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A transport carrying remote calls as binary messages over persistent TCP
+ * connections, all driven by a single non-blocking selector thread.
+ * <p>
+ * All the calls to the same address share one connection, on which they are
+ * multiplexed by call id: a caller sends its request and waits for the response
+ * carrying the same id while other calls go back and forth. Incoming calls are
+ * decoded on the selector thread but invoked on pooled threads, since overlay
+ * calls nest (a recursive search makes calls while serving one) and must never
+ * block the selector. The pool is bounded: once all its threads are busy, the
+ * requests that arrive wait on their connection, which is not read anymore
+ * until a thread is free, so that the peers sending them slow down.
+ * <p>
+ * Messages are length prefixed frames made of the call id, the kind of the
+ * frame and its body. A call names its method by its index in a table both ends
+ * build from the remote interfaces of the exported node, which the caller learns
+ * in a handshake when it looks the node up. Arguments and results are written
+ * by {@link Codec}.
+ */
+public class NIOTransport implements Transport, Closeable {
+
+    // default time a call waits for its response
+    public static final long DEFAULT_CALL_TIMEOUT_MILLIS = 30 * 1000;
+    // frames longer than this are considered corrupt and close their connection
+    private static final int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    // size of the call id and kind that start every frame
+    private static final int HEADER_SIZE = Long.BYTES + 1;
+    // default number of requests served at once; served calls may wait on calls
+    // they make themselves, so the bound leaves room for nesting
+    public static final int DEFAULT_MAX_WORKERS = 256;
+
+    // kinds of frames
+    private static final byte HELLO = 0;
+    private static final byte CALL = 1;
+    private static final byte RESULT = 2;
+    private static final byte ERROR = 3;
+
+    private final long callTimeoutMillis;
+    private final Selector selector;
+    // work handed to the selector thread, which owns the selection keys
+    private final Queue<IOTask> selectorTasks = new ConcurrentLinkedQueue<>();
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+    // connections being opened, which the callers to the same address wait for
+    private final Map<String, CompletableFuture<Connection>> opening = new ConcurrentHashMap<>();
+    private final AtomicLong nextCallId = new AtomicLong();
+    private final ExecutorService workers;
+    // one per request a worker may serve at once
+    private final Semaphore permits;
+    // accepted connections holding requests no worker was free for, in the order
+    // they were put aside; only touched by the selector thread
+    private final Queue<Connection> backlog = new ArrayDeque<>();
+    private volatile boolean backlogged;
+    private final Logger logger;
+    private volatile boolean running = true;
+
+    public NIOTransport() throws IOException {
+        this(DEFAULT_CALL_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param callTimeoutMillis time a call waits for its response before failing
+     *                          with a RemoteException
+     */
+    public NIOTransport(long callTimeoutMillis) throws IOException {
+        this(callTimeoutMillis, DEFAULT_MAX_WORKERS);
+    }
+
+    /**
+     * @param callTimeoutMillis time a call waits for its response before failing
+     *                          with a RemoteException
+     * @param maxWorkers        number of requests served at once
+     */
+    public NIOTransport(long callTimeoutMillis, int maxWorkers) throws IOException {
+        this.callTimeoutMillis = callTimeoutMillis;
+        this.selector = Selector.open();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(maxWorkers, maxWorkers, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), Util.daemonThreadFactory("nio-transport-worker"));
+        workers.allowCoreThreadTimeOut(true);
+        this.workers = workers;
+        this.permits = new Semaphore(maxWorkers);
+        this.logger = Logger.getLogger(NIOTransport.class);
+        Util.daemonThreadFactory("nio-transport").newThread(this::run).start();
+    }
+
+    @Override
+    public void export(Remote node, int port) throws RemoteException {
+        Exported exported = new Exported(node);
+        try {
+            ServerSocketChannel server = ServerSocketChannel.open();
+            try {
+                server.configureBlocking(false);
+                server.bind(new InetSocketAddress(port));
+            } catch (IOException e) {
+                server.close();
+                throw e;
+            }
+            onSelector(() -> server.register(selector, SelectionKey.OP_ACCEPT, exported));
+        } catch (IOException e) {
+            throw new ExportException("Could not export on port " + port, e);
+        }
+    }
+
+    @Override
+    public Remote lookup(String adrs) throws RemoteException {
+        if (!Util.validateIP(adrs))
+            throw new RemoteException("Invalid address " + adrs);
+        Frame hello = call(adrs, HELLO, new byte[0]);
+        if (hello.kind == ERROR)
+            throw new RemoteException("Handshake with " + adrs + " failed");
+        try {
+            DataInputStream in = hello.input();
+            Class<?>[] interfaces = new Class<?>[in.readInt()];
+            for (int i = 0; i < interfaces.length; i++)
+                interfaces[i] = Class.forName(in.readUTF(), false, Transport.class.getClassLoader());
+            Invoker invoker = new Invoker(adrs, new MethodTable(interfaces));
+            return (Remote) Proxy.newProxyInstance(Transport.class.getClassLoader(), interfaces, invoker);
+        } catch (IOException | ClassNotFoundException e) {
+            throw new RemoteException("Invalid handshake from " + adrs, e);
+        }
+    }
+
+    /**
+     * Stops the selector thread and closes all the connections and exported
+     * ports of this transport.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        workers.shutdown();
+    }
+
+    /**
+     * Sends a request to the given address and waits for its response.
+     */
+    private Frame call(String adrs, byte kind, byte[] body) throws RemoteException {
+        Connection connection = connect(adrs);
+        long id = nextCallId.incrementAndGet();
+        CompletableFuture<Frame> response = new CompletableFuture<>();
+        connection.calls.put(id, response);
+        try {
+            // a connection closed before the call was registered will not fail it
+            if (connection.closed)
+                throw new ConnectException("Connection to " + adrs + " is closed");
+            connection.send(frame(id, kind, body));
+            return response.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while calling " + adrs, e);
+        } catch (ExecutionException e) {
+            throw new ConnectException("Connection to " + adrs + " failed", (Exception) e.getCause());
+        } catch (TimeoutException e) {
+            throw new RemoteException("Call to " + adrs + " timed out after " + callTimeoutMillis + " ms");
+        } finally {
+            connection.calls.remove(id);
+        }
+    }
+
+    /**
+     * Returns the open connection to the given address, opening one if there is
+     * none. The connection is opened without blocking through the selector, and
+     * the callers to the same address wait for it at most as long as for a call,
+     * while connections to other addresses go on.
+     *
+     * @return the open connection to the given address
+     */
+    private Connection connect(String adrs) throws RemoteException {
+        Connection connection = connections.get(adrs);
+        if (connection != null && !connection.closed)
+            return connection;
+        CompletableFuture<Connection> pending = new CompletableFuture<>();
+        CompletableFuture<Connection> existing = opening.putIfAbsent(adrs, pending);
+        if (existing != null) {
+            pending = existing;
+        } else {
+            CompletableFuture<Connection> opened = pending;
+            opened.whenComplete((c, e) -> opening.remove(adrs, opened));
+            open(adrs, opened);
+        }
+        try {
+            return pending.get(callTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Interrupted while connecting to " + adrs, e);
+        } catch (ExecutionException e) {
+            throw new ConnectException("Could not connect to " + adrs, (Exception) e.getCause());
+        } catch (TimeoutException e) {
+            // gives up the connection for every caller waiting for it
+            pending.completeExceptionally(e);
+            throw new ConnectException("Connecting to " + adrs + " timed out after " + callTimeoutMillis + " ms");
+        }
+    }
+
+    /**
+     * Starts opening a connection to the given address, which completes the
+     * given future once it is connected, or fails it.
+     */
+    private void open(String adrs, CompletableFuture<Connection> pending) {
+        Connection connection = connections.get(adrs);
+        if (connection != null && !connection.closed) {
+            pending.complete(connection);
+            return;
+        }
+        int sep = adrs.lastIndexOf(':');
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection opened = new Connection(channel, null, adrs);
+            opened.opening = pending;
+            // a connection given up before it is established is closed
+            pending.whenComplete((c, e) -> {
+                if (e != null)
+                    onSelector(() -> opened.close(new ConnectException("Connection to " + adrs + " given up")));
+            });
+            channel.connect(new InetSocketAddress(adrs.substring(0, sep), Integer.parseInt(adrs.substring(sep + 1))));
+            onSelector(() -> {
+                if (pending.isDone())
+                    return;
+                opened.key = channel.register(selector, SelectionKey.OP_CONNECT, opened);
+                // the connection may be established already, as it is to local addresses
+                if (channel.isConnectionPending())
+                    return;
+                opened.connected();
+            });
+        } catch (IOException | RuntimeException e) {
+            pending.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Serves a request received on the given connection and sends back its
+     * response. Runs on a worker thread.
+     */
+    private void serve(Connection connection, Frame request) {
+        Exported exported = connection.exported;
+        byte kind = RESULT;
+        byte[] body;
+        try {
+            if (request.kind == HELLO) {
+                body = exported.hello;
+            } else {
+                Object result;
+                try {
+                    DataInputStream in = request.input();
+                    Method method = exported.table.get(in.readUnsignedShort());
+                    Object[] args = new Object[in.readUnsignedByte()];
+                    for (int i = 0; i < args.length; i++)
+                        args[i] = Codec.read(in);
+                    result = method.invoke(exported.node, args);
+                } catch (InvocationTargetException e) {
+                    kind = ERROR;
+                    result = e.getCause();
+                } catch (Exception e) {
+                    kind = ERROR;
+                    result = new MarshalException("Could not read the call", e);
+                }
+                body = encode(result);
+            }
+        } catch (IOException e) {
+            kind = ERROR;
+            body = encodeFailure(new MarshalException("Could not write the result", e));
+        }
+        try {
+            connection.send(frame(request.id, kind, body));
+        } catch (RemoteException e) {
+            logger.debug("Could not send the response of call " + request.id + ": " + e.getMessage());
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                selector.select();
+                IOTask task;
+                while ((task = selectorTasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } catch (IOException e) {
+                        logger.error("Selector task failed", e);
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable()) {
+                        accept(key);
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isConnectable()) {
+                            connection.connected();
+                            continue;
+                        }
+                        if (key.isReadable())
+                            connection.read();
+                        if (key.isValid() && key.isWritable())
+                            connection.flush();
+                    } catch (IOException e) {
+                        connection.close(e);
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Selector failed", e);
+            }
+        }
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException e) {
+                logger.debug("Could not close channel: " + e.getMessage());
+            }
+            if (key.attachment() instanceof Connection)
+                ((Connection) key.attachment()).close(new EOFException("Transport closed"));
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            logger.debug("Could not close selector: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hands the requests put aside to the workers that became free, and reads
+     * again the connections whose requests are all handed. Runs on the selector
+     * thread.
+     */
+    private void drainBacklog() {
+        Connection connection;
+        while ((connection = backlog.peek()) != null) {
+            if (!connection.closed && !connection.resume())
+                return;
+            backlog.poll();
+        }
+        backlogged = false;
+    }
+
+    private void accept(SelectionKey key) {
+        try {
+            SocketChannel channel = ((ServerSocketChannel) key.channel()).accept();
+            if (channel == null)
+                return;
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel, (Exported) key.attachment(), null);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        } catch (IOException e) {
+            logger.debug("Could not accept a connection: " + e.getMessage());
+        }
+    }
+
+    private void onSelector(IOTask task) {
+        selectorTasks.add(task);
+        selector.wakeup();
+    }
+
+    private static ByteBuffer frame(long id, byte kind, byte[] body) {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + HEADER_SIZE + body.length);
+        buffer.putInt(HEADER_SIZE + body.length).putLong(id).put(kind).put(body);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        Codec.write(out, value);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encodeFailure(RemoteException failure) {
+        try {
+            return encode(failure);
+        } catch (IOException e) {
+            throw new IllegalStateException("A RemoteException could not be written", e);
+        }
+    }
+
+    private interface IOTask {
+        void run() throws IOException;
+    }
+
+    private static class Frame {
+        private final long id;
+        private final byte kind;
+        private final byte[] body;
+
+        private Frame(long id, byte kind, byte[] body) {
+            this.id = id;
+            this.kind = kind;
+            this.body = body;
+        }
+
+        private DataInputStream input() {
+            return new DataInputStream(new ByteArrayInputStream(body));
+        }
+    }
+
+    /**
+     * The methods of a set of remote interfaces, indexed by the order of their
+     * signatures so that both ends of a connection agree on the indexes.
+     */
+    private static class MethodTable {
+        private final List<Method> methods;
+        private final Map<String, Integer> indexes;
+
+        private MethodTable(Class<?>[] interfaces) {
+            TreeMap<String, Method> bySignature = new TreeMap<>();
+            for (Class<?> i : interfaces) {
+                for (Method method : i.getMethods())
+                    bySignature.putIfAbsent(signature(method), method);
+            }
+            methods = new ArrayList<>(bySignature.values());
+            indexes = new ConcurrentHashMap<>();
+            for (int i = 0; i < methods.size(); i++)
+                indexes.put(signature(methods.get(i)), i);
+        }
+
+        private int indexOf(Method method) {
+            Integer index = indexes.get(signature(method));
+            if (index == null)
+                throw new IllegalArgumentException("Not a remote method: " + method);
+            return index;
+        }
+
+        private Method get(int index) throws IOException {
+            if (index >= methods.size())
+                throw new IOException("Unknown method index " + index);
+            return methods.get(index);
+        }
+
+        private static String signature(Method method) {
+            StringBuilder sb = new StringBuilder(method.getName()).append('(');
+            for (Class<?> type : method.getParameterTypes())
+                sb.append(type.getName()).append(',');
+            return sb.append(')').toString();
+        }
+    }
+
+    /**
+     * A node exported on a port, with the handshake sent to the nodes looking it
+     * up.
+     */
+    private static class Exported {
+        private final Remote node;
+        private final MethodTable table;
+        private final byte[] hello;
+
+        private Exported(Remote node) throws RemoteException {
+            Class<?>[] interfaces = Transports.remoteInterfaces(node.getClass());
+            this.node = node;
+            this.table = new MethodTable(interfaces);
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(interfaces.length);
+                for (Class<?> i : interfaces)
+                    out.writeUTF(i.getName());
+                out.flush();
+                this.hello = bytes.toByteArray();
+            } catch (IOException e) {
+                throw new ExportException("Could not describe " + node.getClass().getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Turns the calls on a looked up node into requests on the connection to its
+     * address.
+     */
+    private class Invoker implements InvocationHandler {
+        private final String adrs;
+        private final MethodTable table;
+
+        private Invoker(String adrs, MethodTable table) {
+            this.adrs = adrs;
+            this.table = table;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return "NIO reference to " + adrs;
+                }
+            }
+            byte[] request;
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeShort(table.indexOf(method));
+                out.writeByte(args == null ? 0 : args.length);
+                if (args != null) {
+                    for (Object arg : args)
+                        Codec.write(out, arg);
+                }
+                out.flush();
+                request = bytes.toByteArray();
+            } catch (IOException e) {
+                throw new MarshalException("Could not write the arguments of " + method.getName(), e);
+            }
+            Frame response = call(adrs, CALL, request);
+            Object value;
+            try {
+                value = Codec.read(response.input());
+            } catch (IOException | ClassNotFoundException e) {
+                throw new MarshalException("Could not read the result of " + method.getName(), e);
+            }
+            if (response.kind != ERROR)
+                return value;
+            Throwable failure = (Throwable) value;
+            if (failure instanceof RuntimeException || failure instanceof Error || failure instanceof RemoteException)
+                throw failure;
+            for (Class<?> declared : method.getExceptionTypes()) {
+                if (declared.isInstance(failure))
+                    throw failure;
+            }
+            throw new UnexpectedException("Undeclared exception from " + adrs, (Exception) failure);
+        }
+    }
+
+    /**
+     * A connection, either opened by a lookup or accepted on the port of an
+     * exported node. Its channel and key are only touched by the selector thread;
+     * other threads hand it frames to write through its queue.
+     */
+    private class Connection {
+        private final SocketChannel channel;
+        // the node served on this connection, null on connections opened by lookups
+        private final Exported exported;
+        // the address this connection was opened to, null on accepted connections
+        private final String adrs;
+        private final Queue<ByteBuffer> writes = new ConcurrentLinkedQueue<>();
+        // the calls waiting for their response, by call id
+        private final Map<Long, CompletableFuture<Frame>> calls = new ConcurrentHashMap<>();
+        // requests no worker was free for, while which the connection is not read
+        private final Queue<Frame> deferred = new ArrayDeque<>();
+        private ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private SelectionKey key;
+        // completed once a connection opened by a lookup is established
+        private CompletableFuture<Connection> opening;
+        private volatile boolean closed;
+
+        private Connection(SocketChannel channel, Exported exported, String adrs) {
+            this.channel = channel;
+            this.exported = exported;
+            this.adrs = adrs;
+        }
+
+        private void send(ByteBuffer frame) throws RemoteException {
+            if (closed)
+                throw new ConnectException("Connection is closed");
+            writes.add(frame);
+            onSelector(() -> {
+                if (key != null && key.isValid())
+                    key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            });
+        }
+
+        /**
+         * Finishes opening this connection once the selector reports it
+         * connectable, and hands it to the callers waiting for it.
+         */
+        private void connected() throws IOException {
+            if (channel.isConnectionPending() && !channel.finishConnect())
+                return;
+            key.interestOps(SelectionKey.OP_READ);
+            connections.put(adrs, this);
+            // the callers may have given up on the connection in the meantime
+            if (!opening.complete(this))
+                close(new ConnectException("Connection to " + adrs + " given up"));
+        }
+
+        private void read() throws IOException {
+            if (channel.read(readBuffer) < 0)
+                throw new EOFException("Connection closed by the other end");
+            readBuffer.flip();
+            while (readBuffer.remaining() >= Integer.BYTES) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < HEADER_SIZE || length > MAX_FRAME_SIZE)
+                    throw new IOException("Invalid frame length " + length);
+                if (readBuffer.remaining() < Integer.BYTES + length) {
+                    if (Integer.BYTES + length > readBuffer.capacity()) {
+                        // make room for the whole frame
+                        ByteBuffer bigger = ByteBuffer.allocate(Integer.BYTES + length);
+                        bigger.put(readBuffer);
+                        readBuffer = bigger;
+                        return;
+                    }
+                    break;
+                }
+                readBuffer.getInt();
+                long id = readBuffer.getLong();
+                byte kind = readBuffer.get();
+                byte[] body = new byte[length - HEADER_SIZE];
+                readBuffer.get(body);
+                received(new Frame(id, kind, body));
+            }
+            readBuffer.compact();
+        }
+
+        private void received(Frame frame) throws IOException {
+            if (frame.kind == RESULT || frame.kind == ERROR) {
+                CompletableFuture<Frame> call = calls.remove(frame.id);
+                if (call != null)
+                    call.complete(frame);
+            } else if (exported != null) {
+                if (!deferred.isEmpty() || !dispatch(frame)) {
+                    boolean first = deferred.isEmpty();
+                    deferred.add(frame);
+                    if (first) {
+                        key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+                        backlog.add(this);
+                        backlogged = true;
+                        // a worker may have become free before the backlog was flagged
+                        drainBacklog();
+                    }
+                }
+            } else {
+                throw new IOException("Unexpected request on a connection opened by a lookup");
+            }
+        }
+
+        /**
+         * Hands a request to a free worker.
+         *
+         * @return false if every worker is busy
+         */
+        private boolean dispatch(Frame frame) {
+            if (!permits.tryAcquire())
+                return false;
+            try {
+                workers.execute(() -> {
+                    try {
+                        serve(this, frame);
+                    } finally {
+                        permits.release();
+                        if (backlogged)
+                            onSelector(NIOTransport.this::drainBacklog);
+                    }
+                });
+                return true;
+            } catch (RejectedExecutionException e) {
+                // the transport is closed
+                permits.release();
+                return false;
+            }
+        }
+
+        /**
+         * Hands the deferred requests to free workers, and reads the connection
+         * again once they are all handed.
+         *
+         * @return false if requests are left for lack of workers
+         */
+        private boolean resume() {
+            while (!deferred.isEmpty()) {
+                if (!dispatch(deferred.peek()))
+                    return false;
+                deferred.poll();
+            }
+            if (key.isValid())
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            return true;
+        }
+
+        private void flush() throws IOException {
+            ByteBuffer frame;
+            while ((frame = writes.peek()) != null) {
+                channel.write(frame);
+                if (frame.hasRemaining())
+                    return;
+                writes.poll();
+            }
+            key.interestOps(deferred.isEmpty() ? SelectionKey.OP_READ : 0);
+        }
+
+        private void close(IOException cause) {
+            closed = true;
+            if (adrs != null)
+                connections.remove(adrs, this);
+            if (key != null)
+                key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.debug("Could not close connection: " + e.getMessage());
+            }
+            for (CompletableFuture<Frame> call : calls.values())
+                call.completeExceptionally(cause);
+            if (opening != null)
+                opening.completeExceptionally(cause);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package transport;
+
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+
+/**
+ * The Java RMI transport. Every exported node gets its own registry on its port,
+ * in which it is bound as {@value #BINDING_NAME}, and lookups return the RMI
+ * stub found in the registry of the address.
+ */
+public class RMITransport implements Transport {
+
+    // name under which nodes are bound in their registry
+    public static final String BINDING_NAME = "RMIImpl";
+
+    @Override
+    public void export(Remote node, int port) throws RemoteException {
+        UnicastRemoteObject.exportObject(node, port);
+        try {
+            Registry registry = LocateRegistry.createRegistry(port);
+            registry.rebind(BINDING_NAME, node);
+        } catch (RemoteException e) {
+            UnicastRemoteObject.unexportObject(node, true);
+            throw e;
+        }
+    }
+
+    @Override
+    public Remote lookup(String adrs) throws RemoteException {
+        try {
+            return Naming.lookup("//" + adrs + "/" + BINDING_NAME);
+        } catch (NotBoundException | MalformedURLException e) {
+            throw new RemoteException("Could not look up " + adrs, e);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package transport;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * The medium through which nodes make themselves reachable and reach each other.
+ * A node exports itself on its port, and other nodes look it up by its address
+ * to get a reference implementing the same remote interfaces, on which every
+ * call is carried to the node by the transport.
+ * <p>
+ * Failures of the medium surface as {@link RemoteException}s, as the remote
+ * interfaces of the nodes declare.
+ *
+ * @see Transports
+ */
+public interface Transport {
+
+    /**
+     * Makes the node reachable by other nodes at the given port of this machine.
+     *
+     * @param node the node to export
+     * @param port the port the node is reachable on
+     * @throws RemoteException if the node could not be exported, for instance
+     *                         because the port is taken
+     */
+    void export(Remote node, int port) throws RemoteException;
+
+    /**
+     * @param adrs address of the node, as ip:port
+     * @return a reference to the node exported at the given address, implementing
+     * the remote interfaces of that node
+     * @throws RemoteException if the node could not be reached
+     */
+    Remote lookup(String adrs) throws RemoteException;
+
+    /**
+     * @return true if the nodes are all in this JVM and a lookup costs about as
+     * much as a map access, so that the references it returns need not be cached
+     */
+    default boolean isInProcess() {
+        return false;
+    }
+}
@@ -0,0 +1,71 @@
+package transport;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.rmi.Remote;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Gives the transports by the names used in the configuration. Transports are
+ * shared by all the nodes of a JVM, so that for instance the nodes of a
+ * simulation all use the same NIO selector and connections.
+ */
+public final class Transports {
+
+    public static final String RMI = "rmi";
+    public static final String NIO = "nio";
+    // in-process transports, passing copies of arguments and results or sharing them
+    public static final String LOCAL = "local";
+    public static final String LOCAL_DIRECT = "local-direct";
+
+    private static final Transport rmi = new RMITransport();
+    private static final Transport local = new LocalTransport(true);
+    private static final Transport localDirect = new LocalTransport(false);
+    private static NIOTransport nio;
+
+    private Transports() {
+    }
+
+    /**
+     * @param name the name of the transport, case insensitive
+     * @return the shared transport of the given name
+     * @throws IllegalArgumentException if there is no transport of that name
+     */
+    public static synchronized Transport get(String name) {
+        switch (name.toLowerCase()) {
+            case RMI:
+                return rmi;
+            case NIO:
+                if (nio == null) {
+                    try {
+                        nio = new NIOTransport();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Could not start the NIO transport", e);
+                    }
+                }
+                return nio;
+            case LOCAL:
+                return local;
+            case LOCAL_DIRECT:
+                return localDirect;
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + name);
+        }
+    }
+
+    /**
+     * @return all the remote interfaces implemented by the class or its
+     * superclasses, in a stable order
+     */
+    public static Class<?>[] remoteInterfaces(Class<?> cls) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> c = cls; c != null; c = c.getSuperclass()) {
+            for (Class<?> i : c.getInterfaces()) {
+                if (Remote.class.isAssignableFrom(i) && i != Remote.class)
+                    interfaces.add(i);
+            }
+        }
+        return interfaces.toArray(new Class<?>[0]);
+    }
+}
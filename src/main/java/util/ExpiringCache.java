@@ -0,0 +1,147 @@
+package util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread safe cache bounded both in size and in the age of its entries. When
+ * the cache is full the least recently used entry is evicted, and entries older
+ * than the time to live are dropped the next time they are looked up. Hits,
+ * misses and evictions are counted so callers can export them.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the cached values
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Timestamped<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxSize   maximum number of entries held at any time
+     * @param ttlMillis time in milliseconds after which an entry expires, or a non
+     *                  positive value for entries that never expire
+     */
+    public ExpiringCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        // access order makes the eldest entry the least recently used one
+        this.entries = new LinkedHashMap<K, Timestamped<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Timestamped<V>> eldest) {
+                if (size() > ExpiringCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value cached for the key, or null if it is absent or expired
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Timestamped<V> entry = entries.get(key);
+            if (entry != null && isExpired(entry)) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+            if (entry == null) {
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return entry.value;
+        }
+    }
+
+    /**
+     * Caches the value for the key, replacing any previous value.
+     */
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Timestamped<>(value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Removes the entry of the key if it is cached.
+     *
+     * @return true if an entry was removed
+     */
+    public boolean evict(K key) {
+        synchronized (entries) {
+            if (entries.remove(key) == null)
+                return false;
+            evictions.incrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Removes the entry of the key only if it still caches the given value, so that
+     * a value that has been replaced in the meantime is kept.
+     *
+     * @return true if an entry was removed
+     */
+    public boolean evict(K key, V value) {
+        synchronized (entries) {
+            Timestamped<V> entry = entries.get(key);
+            if (entry == null || entry.value != value)
+                return false;
+            entries.remove(key);
+            evictions.incrementAndGet();
+            return true;
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private boolean isExpired(Timestamped<V> entry) {
+        return ttlMillis > 0 && System.currentTimeMillis() - entry.createdAt > ttlMillis;
+    }
+
+    private static class Timestamped<V> {
+        private final V value;
+        private final long createdAt;
+
+        private Timestamped(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -7,9 +7,12 @@ import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.Random;
 import java.util.Scanner;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import blockchain.Block;
 import blockchain.Transaction;
+import skipGraph.NameID;
 import skipGraph.NodeInfo;
 
 public class Util {
@@ -22,19 +25,16 @@ public class Util {
     public static boolean addArtificialDelay = false;
 
 	
-		/*
-		 * This method returns the length of the common prefix between two given strings
-		 */
-	public static int commonBits(String name1, String name2) {
+	/*
+	 * This method returns the length of the common prefix between two given nameIDs,
+	 * or -1 if either is null or they differ in length
+	 */
+	public static int commonBits(NameID name1, NameID name2) {
 		if(name1 == null || name2 == null) {
 			return -1;
 		}
-		if(name1.length() != name2.length())
-			return -1;
-		int i = 0;
-		for(i = 0; i < name1.length() && name1.charAt(i) == name2.charAt(i) ; ++i);
-			return i;
-		}
+		return name1.commonPrefix(name2);
+	}
 	
 	
 	/*
@@ -124,6 +124,19 @@ public class Util {
 	}
 	
 	
+	/*
+	 * Returns a thread factory creating daemon threads named after the given prefix,
+	 * for executors that must not keep the JVM alive.
+	 */
+	public static ThreadFactory daemonThreadFactory(String prefix) {
+		AtomicInteger count = new AtomicInteger();
+		return r -> {
+			Thread t = new Thread(r, prefix + "-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		};
+	}
+	
 	/*
 	 * A shortcut for printing to console
 	 */
@@ -452,4 +452,52 @@ class LightChainNodeTest {
 		}
 	}
 
+	@Test
+	void testOwnerPublicKeyCache() {
+		try {
+			LightChainNode node1 = new LightChainNode(params, RMIPort1, Const.DUMMY_INTRODUCER, true);
+			LightChainNode node2 = new LightChainNode(params, RMIPort2, node1.getAddress(), false);
+
+			PublicKey pk2 = node1.getOwnerPublicKey(node2.getNumID());
+			assertEquals(1, node1.getOwnerKeyLookups(), "key of owner not looked up");
+			// a verified key is served from the cache
+			assertSame(pk2, node1.getOwnerPublicKey(node2.getNumID()), "verified key not cached");
+			assertEquals(1, node1.getOwnerKeyHits(), "verified key not cached");
+			assertEquals(1, node1.getOwnerKeyLookups(), "verified key looked up again");
+
+			// a numID no node holds is rejected without looking it up again
+			int missing = node2.getNumID() + 1 == node1.getNumID() ? node2.getNumID() - 1 : node2.getNumID() + 1;
+			assertNull(node1.getOwnerPublicKey(missing), "key found for a missing owner");
+			assertNull(node1.getOwnerPublicKey(missing), "key found for a missing owner");
+			assertEquals(2, node1.getOwnerKeyLookups(), "missing owner looked up again");
+			assertEquals(1, node1.getOwnerKeyRejections(), "missing owner not cached");
+
+		} catch (RemoteException e) {
+
+		}
+	}
+
+	// Test if a quorum validation rejects a block that has fewer validators than signatures needed
+	@Test
+	void testQuorumWithTooFewValidators() {
+		try {
+			params.setQuorumValidation(true);
+			params.setSignaturesThreshold(2);
+			params.setAlpha(2);
+			LightChainNode node1 = new LightChainNode(params, RMIPort1, Const.DUMMY_INTRODUCER, true);
+			Block blk = node1.insertGenesis();
+
+			// the owner is never its own validator, so a lone node has none
+			assertTrue(node1.getValidators(blk.toString()).isEmpty());
+			assertFalse(node1.validateBlock(new Block(blk)), "block approved without validators");
+
+			new LightChainNode(params, RMIPort2, node1.getAddress(), false);
+			assertTrue(node1.getValidators(blk.toString()).size() < 2);
+			assertFalse(node1.validateBlock(new Block(blk)), "block approved by too few validators");
+
+		} catch (RemoteException e) {
+
+		}
+	}
+
 }
@@ -0,0 +1,218 @@
+package blockchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashing.Hasher;
+import hashing.HashingTools;
+import signature.SignedBytes;
+import skipGraph.NameID;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compact wire format of blocks and transactions with the default
+ * Java serialization they used before, for a block of 100 signed transactions.
+ * The sizes of both encodings are printed when the benchmark is set up, the
+ * benchmarks measure the time to serialize and deserialize the block.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+	private static final int TRANSACTIONS = 100;
+	private static final int SIGNATURES = 10;
+	// size of an RSA signature with a 2048 bit key
+	private static final int SIGNATURE_SIZE = 256;
+	private static final int LEVELS = 30;
+
+	private Block block;
+	private LegacyBlock legacyBlock;
+	private byte[] compactBytes;
+	private byte[] legacyBytes;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		Random rnd = new Random(42);
+		NameID prev = NameID.fromInt(0, LEVELS);
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = 0; i < TRANSACTIONS; i++) {
+			Transaction t = new Transaction(prev, rnd.nextInt(1 << LEVELS), "content" + rnd.nextInt(), "127.0.0.1:7000", LEVELS);
+			for (int j = 0; j < SIGNATURES; j++)
+				t.addSignature(randomSignature(rnd));
+			transactions.add(t);
+		}
+		block = new Block(prev, rnd.nextInt(1 << LEVELS), "127.0.0.1:7000", transactions, 1, LEVELS);
+		for (int j = 0; j < SIGNATURES; j++)
+			block.addSignature(randomSignature(rnd));
+		legacyBlock = new LegacyBlock(block);
+
+		compactBytes = serialize(block);
+		legacyBytes = serialize(legacyBlock);
+		System.out.println("Block of " + TRANSACTIONS + " transactions: " + compactBytes.length
+				+ " bytes compact, " + legacyBytes.length + " bytes with default serialization");
+	}
+
+	@Benchmark
+	public byte[] serializeCompact() throws IOException {
+		return serialize(block);
+	}
+
+	@Benchmark
+	public byte[] serializeLegacy() throws IOException {
+		return serialize(legacyBlock);
+	}
+
+	@Benchmark
+	public Object deserializeCompact() throws IOException, ClassNotFoundException {
+		return deserialize(compactBytes);
+	}
+
+	@Benchmark
+	public Object deserializeLegacy() throws IOException, ClassNotFoundException {
+		return deserialize(legacyBytes);
+	}
+
+	private static byte[] serialize(Object obj) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(obj);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+	}
+
+	private static SignedBytes randomSignature(Random rnd) {
+		byte[] bytes = new byte[SIGNATURE_SIZE];
+		rnd.nextBytes(bytes);
+		SignedBytes signature = new SignedBytes(bytes, true, true, true, true);
+		signature.setValidationTime(rnd.nextInt(1000));
+		return signature;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(WireFormatBenchmark.class.getSimpleName()).build()).run();
+	}
+
+	/*
+	 * Mirrors of the fields the classes had when they relied on default
+	 * serialization, including the hasher each block and transaction carried.
+	 */
+
+	private static class LegacyNodeInfo implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private String address;
+		private int numID;
+		private NameID nameID;
+
+		LegacyNodeInfo(String address, int numID, NameID nameID) {
+			this.address = address;
+			this.numID = numID;
+			this.nameID = nameID;
+		}
+	}
+
+	private static class LegacySignedBytes implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private byte[] array;
+		private boolean isAuthenticated;
+		private boolean isSound;
+		private boolean isCorrect;
+		private boolean hasBalance;
+		private long validationTime;
+
+		LegacySignedBytes(SignedBytes s) {
+			array = s.getBytes();
+			isAuthenticated = s.isAuth();
+			isSound = s.isSound();
+			isCorrect = s.isCorrect();
+			hasBalance = s.hasBalance();
+			validationTime = s.getValidationTime();
+		}
+
+		static List<LegacySignedBytes> of(List<SignedBytes> sigma) {
+			List<LegacySignedBytes> list = new ArrayList<>();
+			for (SignedBytes s : sigma)
+				list.add(new LegacySignedBytes(s));
+			return list;
+		}
+	}
+
+	private static class LegacyTransaction extends LegacyNodeInfo {
+		private static final long serialVersionUID = 1L;
+		private final NameID prev;
+		private final int owner;
+		private final String cont;
+		private final NameID hash;
+		private List<LegacySignedBytes> sigma;
+		private Hasher hasher;
+		private int levels;
+
+		LegacyTransaction(Transaction t) {
+			super(t.getAddress(), t.getNumID(), t.getNameID());
+			prev = t.getPrev();
+			owner = t.getOwner();
+			cont = t.getCont();
+			hash = t.getHash();
+			sigma = LegacySignedBytes.of(t.getSigma());
+			hasher = new HashingTools();
+			levels = t.getLevels();
+		}
+	}
+
+	private static class LegacyBlock extends LegacyNodeInfo {
+		private static final long serialVersionUID = 1L;
+		private final NameID prev;
+		private final int owner;
+		private List<LegacyTransaction> transactionSet;
+		private final NameID hash;
+		private List<LegacySignedBytes> sigma;
+		private Hasher hasher;
+		private final int index;
+		private int levels;
+
+		LegacyBlock(Block b) {
+			super(b.getAddress(), b.getNumID(), b.getNameID());
+			prev = b.getPrev();
+			owner = b.getOwner();
+			transactionSet = new ArrayList<>();
+			for (Transaction t : b.getTransactionSet())
+				transactionSet.add(new LegacyTransaction(t));
+			hash = b.getHash();
+			sigma = LegacySignedBytes.of(b.getSigma());
+			hasher = new HashingTools();
+			index = b.getIndex();
+			levels = b.getLevels();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package blockchain;
+
+import org.junit.jupiter.api.Test;
+import signature.SignedBytes;
+import skipGraph.NameID;
+import skipGraph.NodeInfo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WireFormatTest {
+
+	private static final int LEVELS = 30;
+
+	// Test if a node survives a round trip through its wire format
+	@Test
+	void testNodeInfoRoundTrip() throws IOException, ClassNotFoundException {
+		NodeInfo node = new NodeInfo("127.0.0.1:7000", 42, NameID.fromString("0110"));
+		assertEquals(node, roundTrip(node));
+
+		NodeInfo empty = (NodeInfo) roundTrip(new NodeInfo(null, 0, null));
+		assertNull(empty.getAddress());
+		assertNull(empty.getNameID());
+	}
+
+	// Test if a block keeps its transactions and signatures through a round trip
+	@Test
+	void testBlockRoundTrip() throws IOException, ClassNotFoundException {
+		NameID prev = NameID.fromInt(0, LEVELS);
+		List<Transaction> transactions = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			Transaction t = new Transaction(prev, i, "content" + i, "127.0.0.1:700" + i, LEVELS);
+			t.addSignature(signature(i));
+			transactions.add(t);
+		}
+		Block block = new Block(prev, 7, "127.0.0.1:7005", transactions, 4, LEVELS);
+		block.addSignature(signature(9));
+		block.addSignature(new SignedBytes(null));
+
+		Block read = (Block) roundTrip(block);
+		assertEquals(block, read);
+		assertEquals(block.getPrev(), read.getPrev());
+		assertEquals(block.getHash(), read.getHash());
+		assertEquals(block.getOwner(), read.getOwner());
+		assertEquals(block.getIndex(), read.getIndex());
+		assertEquals(block.getLevels(), read.getLevels());
+		assertEquals(block.toString(), read.toString());
+
+		assertEquals(2, read.getSigma().size());
+		assertSignatureEquals(block.getSigma().get(0), read.getSigma().get(0));
+		assertNull(read.getSigma().get(1).getBytes());
+
+		assertEquals(transactions.size(), read.getTransactionSet().size());
+		for (int i = 0; i < transactions.size(); i++) {
+			Transaction expected = transactions.get(i);
+			Transaction actual = read.getTransactionSet().get(i);
+			assertEquals(expected, actual);
+			assertEquals(expected.getHash(), actual.getHash());
+			assertEquals(expected.getCont(), actual.getCont());
+			assertEquals(expected.getOwner(), actual.getOwner());
+			assertSignatureEquals(expected.getSigma().get(0), actual.getSigma().get(0));
+		}
+	}
+
+	private static SignedBytes signature(int seed) {
+		SignedBytes signature = new SignedBytes(new byte[] { (byte) seed, 1, 2, 3 }, true, seed % 2 == 0, true, false);
+		signature.setValidationTime(seed * 10L);
+		return signature;
+	}
+
+	private static void assertSignatureEquals(SignedBytes expected, SignedBytes actual) {
+		assertArrayEquals(expected.getBytes(), actual.getBytes());
+		assertEquals(expected.isAuth(), actual.isAuth());
+		assertEquals(expected.isSound(), actual.isSound());
+		assertEquals(expected.isCorrect(), actual.isCorrect());
+		assertEquals(expected.hasBalance(), actual.hasBalance());
+		assertEquals(expected.getValidationTime(), actual.getValidationTime());
+	}
+
+	private static Object roundTrip(Object obj) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(obj);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			return in.readObject();
+		}
+	}
+}
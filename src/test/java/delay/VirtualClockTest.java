@@ -0,0 +1,97 @@
+package delay;
+
+import org.junit.jupiter.api.Test;
+import skipGraph.NameID;
+import skipGraph.NodeConfig;
+import skipGraph.RMIInterface;
+import skipGraph.SkipNode;
+import transport.LocalTransport;
+import util.Const;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualClockTest {
+
+	private static int port = 7800;
+	private int maxLevels = 3;
+
+	// Test if delays pass on the clock of the calling thread only
+	@Test
+	void testAdvance() throws Exception {
+		long before = VirtualClock.elapsed();
+		long calls = VirtualClock.getDelayedCalls();
+		VirtualClock.advance(40);
+		VirtualClock.advance(60);
+		assertEquals(before + 100, VirtualClock.elapsed());
+		assertTrue(VirtualClock.getDelayedCalls() >= calls + 2);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertEquals(0L, (long) executor.submit(VirtualClock::elapsed).get());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// Test if joining branches moves the clock to the end of the slowest one
+	@Test
+	void testForkJoin() throws Exception {
+		long start = VirtualClock.elapsed();
+		VirtualClock.Fork fork = VirtualClock.fork();
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<Long> fast = executor.submit(fork.wrap(() -> {
+				VirtualClock.advance(10);
+				return VirtualClock.elapsed();
+			}));
+			Future<Long> slow = executor.submit(fork.wrap(() -> {
+				VirtualClock.advance(30);
+				return VirtualClock.elapsed();
+			}));
+			assertEquals(start + 10, (long) fast.get());
+			assertEquals(start + 30, (long) slow.get());
+			// the worker threads get their own clocks back
+			assertEquals(0L, (long) executor.submit(VirtualClock::elapsed).get());
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(start, VirtualClock.elapsed());
+		fork.join();
+		assertEquals(start + 30, VirtualClock.elapsed());
+	}
+
+	// Test if a virtual wrapper lets the delay pass without sleeping
+	@Test
+	void testVirtualWrapper() throws Exception {
+		LocalTransport transport = new LocalTransport(false);
+		SkipNode node1 = new SkipNode(config(transport, 2, "001"), Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config(transport, 1, "011"), node1.getAddress(), false);
+		int delay = DelayTracker.getInstance().getDelay(node1.getAddress(), node2.getAddress());
+
+		RMIInterface wrapper = new SkipNodeDelayWrapper(node2, node1.getAddress(), node2.getAddress(), true);
+		long before = VirtualClock.elapsed();
+		long wallBefore = System.nanoTime();
+		for (int i = 0; i < 10; i++)
+			assertEquals(1, wrapper.getNumID());
+		long wallTime = (System.nanoTime() - wallBefore) / 1000000;
+		assertEquals(before + 10L * delay, VirtualClock.elapsed());
+		if (delay > 0)
+			assertTrue(wallTime < 10L * delay, "the wrapper slept");
+
+		// nodes in virtual mode delay the stubs of other nodes but keep finding them
+		node1.setDelayMode(DelayMode.VIRTUAL);
+		node2.setDelayMode(DelayMode.VIRTUAL);
+		assertTrue(node1.getRMI(node2.getAddress()) instanceof SkipNodeDelayWrapper);
+		assertSame(node1, node1.getRMI(node1.getAddress()));
+		assertEquals(node2.getPeer(), node1.searchByNumID(1));
+		assertEquals(node1.getPeer(), node2.searchByNumID(2));
+	}
+
+	private NodeConfig config(LocalTransport transport, int numID, String nameID) {
+		return new NodeConfig(maxLevels, port++, numID, NameID.fromString(nameID), transport);
+	}
+}
@@ -0,0 +1,121 @@
+package signature;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import hashing.HashingTools;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares signing, verifying and hashing through the engines each thread keeps
+ * with looking up a new engine on every call, and the table driven expansion of
+ * a hash into bits with formatting every byte, as was done before. The text is
+ * the size of the string a transaction hash is computed over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+	private static final String SIGN_ALGORITHM = "SHA256withRSA";
+
+	private DigitalSignature digitalSignature;
+	private HashingTools hasher;
+	private KeyPair legacyKeys;
+	private String text;
+	private SignedBytes signed;
+	private SignedBytes legacySigned;
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		digitalSignature = new DigitalSignature();
+		hasher = new HashingTools();
+		KeyPairGenerator gen = KeyPairGenerator.getInstance("RSA");
+		gen.initialize(2048);
+		legacyKeys = gen.generateKeyPair();
+		text = "110100101100111010010110100101" + 123456789 + "content of a transaction, 48 characters long....";
+		signed = digitalSignature.signString(text);
+		legacySigned = legacySign();
+		if (!hasher.getHash(text).equals(legacyHash()))
+			throw new IllegalStateException("table driven and formatted hashes differ");
+	}
+
+	@Benchmark
+	public SignedBytes sign() {
+		return digitalSignature.signString(text);
+	}
+
+	@Benchmark
+	public SignedBytes signLegacy() throws Exception {
+		return legacySign();
+	}
+
+	@Benchmark
+	public boolean verify() {
+		return digitalSignature.verifyString(text, signed, digitalSignature.getPublicKey());
+	}
+
+	@Benchmark
+	public boolean verifyLegacy() throws Exception {
+		Signature signature = Signature.getInstance(SIGN_ALGORITHM);
+		signature.initVerify(legacyKeys.getPublic());
+		signature.update(text.getBytes());
+		return signature.verify(legacySigned.getBytes());
+	}
+
+	@Benchmark
+	public String hash() {
+		return hasher.getHash(text);
+	}
+
+	@Benchmark
+	public byte[] hashBytes() {
+		return hasher.getHashBytes(text);
+	}
+
+	@Benchmark
+	public String hashLegacy() throws Exception {
+		return legacyHash();
+	}
+
+	private SignedBytes legacySign() throws Exception {
+		Signature signature = Signature.getInstance(SIGN_ALGORITHM);
+		signature.initSign(legacyKeys.getPrivate());
+		signature.update(text.getBytes("UTF-8"));
+		return new SignedBytes(signature.sign());
+	}
+
+	private String legacyHash() throws Exception {
+		MessageDigest dig = MessageDigest.getInstance("SHA-256");
+		byte[] hash = dig.digest(text.getBytes(StandardCharsets.UTF_8));
+		StringBuffer binString = new StringBuffer();
+		for (int i = 0; i < hash.length; i++)
+			binString.append(String.format("%8s", Integer.toBinaryString(((1 << 8) - 1) & hash[i])).replace(" ", "0"));
+		return binString.toString();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(CryptoBenchmark.class.getSimpleName()).build()).run();
+	}
+}
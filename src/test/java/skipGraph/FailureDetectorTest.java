@@ -0,0 +1,109 @@
+package skipGraph;
+
+import blockchain.Block;
+import blockchain.LightChainRMIInterface;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.rmi.RemoteException;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FailureDetectorTest {
+
+	private static final String ADDRESS = "127.0.0.1:7950";
+
+	// Test if timeouts adapt to the round trip times of a node and slow calls are given up
+	@Test
+	void testAdaptiveTimeout() throws Exception {
+		FailureDetector detector = new FailureDetector();
+		AtomicBoolean slow = new AtomicBoolean();
+		RMIInterface node = detector.monitor(ADDRESS, stub(slow));
+
+		assertEquals(FailureDetector.DEFAULT_TIMEOUT_MILLIS, detector.timeoutMillis(ADDRESS, "getNumID"));
+		for (int i = 0; i < 5; i++)
+			assertEquals(5, node.getNumID());
+		long timeout = detector.timeoutMillis(ADDRESS, "getNumID");
+		assertTrue(timeout < FailureDetector.DEFAULT_TIMEOUT_MILLIS, "the timeout did not adapt");
+		assertFalse(detector.isSuspected(ADDRESS));
+
+		slow.set(true);
+		long start = System.currentTimeMillis();
+		assertThrows(RemoteException.class, node::getNumID);
+		assertTrue(System.currentTimeMillis() - start < 3000, "the call was not given up");
+		assertEquals(1, detector.getTimeouts());
+		assertTrue(detector.isSuspected(ADDRESS), "a timed out node is not suspected");
+
+		// calls routed through other nodes are not bounded
+		assertNull(node.searchByNumID(1));
+
+		// a reply lifts the suspicion
+		slow.set(false);
+		assertEquals(5, node.getNumID());
+		assertFalse(detector.isSuspected(ADDRESS));
+	}
+
+	// Test if a node answering heartbeats is trusted, and suspected once it stops answering
+	@Test
+	void testHeartbeats() throws Exception {
+		FailureDetector detector = new FailureDetector();
+		AtomicBoolean slow = new AtomicBoolean();
+		RMIInterface node = detector.monitor(ADDRESS, stub(slow));
+		detector.startHeartbeats(20, () -> Collections.singleton(ADDRESS), adrs -> node);
+		try {
+			Thread.sleep(300);
+			assertFalse(detector.isSuspected(ADDRESS));
+			assertTrue(detector.phi(ADDRESS) < FailureDetector.DEFAULT_PHI_THRESHOLD);
+
+			slow.set(true);
+			long deadline = System.currentTimeMillis() + 5000;
+			while (!detector.isSuspected(ADDRESS) && System.currentTimeMillis() < deadline)
+				Thread.sleep(20);
+			assertTrue(detector.isSuspected(ADDRESS), "a silent node is not suspected");
+
+			slow.set(false);
+			deadline = System.currentTimeMillis() + 5000;
+			while (detector.isSuspected(ADDRESS) && System.currentTimeMillis() < deadline)
+				Thread.sleep(20);
+			assertFalse(detector.isSuspected(ADDRESS), "a recovered node is still suspected");
+		} finally {
+			detector.stopHeartbeats();
+		}
+	}
+
+	// Test if a slow validation is waited for without suspecting its validator
+	@Test
+	void testSlowPoV() throws Exception {
+		FailureDetector detector = new FailureDetector();
+		AtomicBoolean slow = new AtomicBoolean();
+		LightChainRMIInterface validator = (LightChainRMIInterface) detector.monitor(ADDRESS, stub(slow));
+		for (int i = 0; i < 5; i++)
+			assertNull(validator.PoV((Block) null));
+
+		slow.set(true);
+		assertNull(validator.PoV((Block) null));
+		assertEquals(0, detector.getTimeouts());
+		assertFalse(detector.isSuspected(ADDRESS), "a slow validator is suspected");
+	}
+
+	/**
+	 * @return a node with numID 5 which takes 2 seconds to answer while slow is set
+	 */
+	private RMIInterface stub(AtomicBoolean slow) {
+		return (RMIInterface) Proxy.newProxyInstance(RMIInterface.class.getClassLoader(),
+				new Class<?>[] { LightChainRMIInterface.class }, (proxy, method, args) -> {
+					if (slow.get())
+						Thread.sleep(2000);
+					switch (method.getName()) {
+					case "getNumID":
+						return 5;
+					case "ping":
+						return true;
+					default:
+						return null;
+					}
+				});
+	}
+}
@@ -0,0 +1,138 @@
+package skipGraph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import util.Const;
+import util.Util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of selecting the closest data node on a search hop as the
+ * number of data nodes held by a skip node grows. getBestNum and getBestName
+ * should stay flat, while the linear scans they replaced grow with the number of
+ * data nodes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupTableBenchmark {
+
+	private static final int TARGETS = 1024;
+	private static final int NAME_LENGTH = 30;
+
+	@Param({"10", "100", "1000", "10000", "100000"})
+	private int dataNodeCount;
+
+	private LookupTable lookup;
+	private Map<Integer, NodeInfo> hashMap;
+	private int[] targets;
+	private NameID[] targetNames;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Random rnd = new Random(42);
+		lookup = new LookupTable(30);
+		hashMap = new HashMap<>();
+		while (lookup.size() < dataNodeCount) {
+			int num = rnd.nextInt(1 << 30);
+			NodeInfo node = new NodeInfo("127.0.0.1:7000", num, randomName(rnd));
+			lookup.addNode(node);
+			hashMap.put(num, node);
+		}
+		targets = new int[TARGETS];
+		targetNames = new NameID[TARGETS];
+		for (int i = 0; i < TARGETS; i++) {
+			targets[i] = rnd.nextInt(1 << 30);
+			targetNames[i] = randomName(rnd);
+		}
+	}
+
+	@Benchmark
+	public int getBestNum() {
+		return lookup.getBestNum(nextTarget());
+	}
+
+	@Benchmark
+	public int linearScan() {
+		// the selection getBestNum used to make by scanning every data node
+		int numID = nextTarget();
+		long bestDif = Long.MAX_VALUE;
+		int bestNum = -1;
+		for (int cur : hashMap.keySet()) {
+			int dif = Math.abs(numID - cur);
+			if (dif < bestDif) {
+				bestDif = dif;
+				bestNum = cur;
+			}
+		}
+		return bestNum;
+	}
+
+	@Benchmark
+	public int getBestName() {
+		return lookup.getBestName(nextTargetName(), Const.RIGHT);
+	}
+
+	@Benchmark
+	public int linearNameScan() {
+		// the two passes getBestName used to make over every data node
+		NameID name = nextTargetName();
+		int best = -1;
+		int num = -1;
+		for (int cur : hashMap.keySet()) {
+			if (num == -1)
+				num = cur;
+			int tmp = Util.commonBits(name, hashMap.get(cur).getNameID());
+			if (tmp > best) {
+				best = tmp;
+				num = cur;
+			}
+		}
+		for (int cur : hashMap.keySet()) {
+			int bits = Util.commonBits(name, hashMap.get(cur).getNameID());
+			if (bits == best && hashMap.get(cur).getNumID() > num)
+				num = hashMap.get(cur).getNumID();
+		}
+		return num;
+	}
+
+	private int nextTarget() {
+		next = (next + 1) & (TARGETS - 1);
+		return targets[next];
+	}
+
+	private NameID nextTargetName() {
+		next = (next + 1) & (TARGETS - 1);
+		return targetNames[next];
+	}
+
+	private static NameID randomName(Random rnd) {
+		return NameID.fromInt(rnd.nextInt(1 << NAME_LENGTH), NAME_LENGTH);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(LookupTableBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,118 @@
+package skipGraph;
+
+import org.junit.jupiter.api.Test;
+import util.Const;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LookupTableTest {
+
+	// Test if waiting for a buffered node resumes as soon as it is committed, and times out otherwise
+	@Test
+	void testAwaitFinalized() throws Exception {
+		LookupTable lookup = new LookupTable(3);
+		NodeInfo node = new NodeInfo("127.0.0.1:7900", 5, NameID.fromString("010"));
+		NodeInfo neighbor = new NodeInfo("127.0.0.1:7900", 9, NameID.fromString("011"));
+		lookup.initializeNode(node);
+		lookup.put(5, Const.ZERO_LEVEL, Const.RIGHT, neighbor, null);
+
+		// the inserting thread is never blocked by its own buffer
+		assertTrue(lookup.awaitFinalized(5, 0, TimeUnit.MILLISECONDS));
+		// nodes that are not buffered are not waited for
+		assertTrue(lookup.awaitFinalized(7, 0, TimeUnit.MILLISECONDS));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			assertFalse(executor.submit(() -> lookup.awaitFinalized(5, 50, TimeUnit.MILLISECONDS)).get());
+
+			Future<Long> waited = executor.submit(() -> {
+				long start = System.nanoTime();
+				assertTrue(lookup.awaitFinalized(5, 10, TimeUnit.SECONDS));
+				return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			});
+			Thread.sleep(100);
+			assertTrue(lookup.finalizeNode(5));
+			assertTrue(waited.get(10, TimeUnit.SECONDS) < 5000, "the waiter was not released by the commit");
+			assertEquals(neighbor, executor.submit(() -> lookup.get(5, Const.ZERO_LEVEL, Const.RIGHT)).get());
+
+			// dropping a buffered node releases its waiters too
+			lookup.initializeNode(new NodeInfo("127.0.0.1:7900", 12, NameID.fromString("110")));
+			Future<Boolean> dropped = executor.submit(() -> lookup.awaitFinalized(12, 10, TimeUnit.SECONDS));
+			Thread.sleep(50);
+			lookup.discardNode(12);
+			assertTrue(dropped.get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// Test if readers of a buffered table wait for its commit and then read what was committed
+	@Test
+	void testReadersWaitForCommit() throws Exception {
+		LookupTable lookup = new LookupTable(3);
+		NodeInfo node = new NodeInfo("127.0.0.1:7901", 5, NameID.fromString("010"));
+		NodeInfo neighbor = new NodeInfo("127.0.0.1:7901", 9, NameID.fromString("011"));
+		lookup.initializeNode(node);
+		lookup.put(5, Const.ZERO_LEVEL, Const.RIGHT, neighbor, null);
+		// the inserting thread reads its own buffer
+		assertEquals(neighbor, lookup.get(5, Const.ZERO_LEVEL, Const.RIGHT));
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<NodeInfo> committed = executor.submit(() -> lookup.get(5, Const.ZERO_LEVEL, Const.RIGHT));
+			Thread.sleep(100);
+			assertFalse(committed.isDone(), "the reader did not wait for the commit");
+			assertTrue(lookup.finalizeNode(5));
+			assertEquals(neighbor, committed.get(10, TimeUnit.SECONDS));
+
+			// the neighbors of a dropped node are not reported
+			lookup.initializeNode(new NodeInfo("127.0.0.1:7901", 12, NameID.fromString("110")));
+			lookup.put(12, Const.ZERO_LEVEL, Const.LEFT, neighbor, null);
+			Future<NodeInfo> dropped = executor.submit(() -> lookup.get(12, Const.ZERO_LEVEL, Const.LEFT));
+			Thread.sleep(50);
+			assertFalse(dropped.isDone(), "the reader did not wait for the buffered node");
+			lookup.discardNode(12);
+			assertNull(dropped.get(10, TimeUnit.SECONDS));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	// Test if the closest data node is always one that is stored while nodes are added and removed
+	@Test
+	void testBestNumWhileChanging() throws Exception {
+		LookupTable lookup = new LookupTable(3);
+		lookup.addNode(new NodeInfo("127.0.0.1:7902", 5, NameID.fromString("010")));
+		NodeInfo churned = new NodeInfo("127.0.0.1:7902", 7, NameID.fromString("011"));
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> adder = executor.submit(() -> {
+				for (int i = 0; i < 20000; i++)
+					lookup.addNode(churned);
+			});
+			Future<?> remover = executor.submit(() -> {
+				for (int i = 0; i < 20000; i++)
+					lookup.remove(7);
+			});
+			while (!adder.isDone() || !remover.isDone()) {
+				int best = lookup.getBestNum(8);
+				assertTrue(best == 5 || best == 7, "unexpected closest node " + best);
+			}
+			adder.get(10, TimeUnit.SECONDS);
+			remover.get(10, TimeUnit.SECONDS);
+
+			// once the changes settle the index holds exactly the stored nodes
+			lookup.remove(7);
+			assertEquals(5, lookup.getBestNum(8));
+			assertNull(lookup.get(7));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -3,9 +3,25 @@ package skipGraph;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import util.Const;
+import util.Util;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
 import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -22,10 +38,10 @@ class SkipNodeTest {
 	private int numID4 = 15;
 	private int numID5 = 50;
 	private int numID6 = 100;
-	private String nameID1 = "011";
-	private String nameID2 = "001";
-	private String nameID3 = "100";
-	private String nameID4 = "111";
+	private NameID nameID1 = NameID.fromString("011");
+	private NameID nameID2 = NameID.fromString("001");
+	private NameID nameID3 = NameID.fromString("100");
+	private NameID nameID4 = NameID.fromString("111");
 	private NodeConfig initialConfig;
 	private NodeConfig config1;
 	private NodeConfig config2;
@@ -124,6 +140,232 @@ class SkipNodeTest {
 		}
 	}
 
+	// Test if iterative num ID search finds exact results
+	@Test
+	void testIterativeSearchByNumIDExact() {
+		try {
+
+			SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+			SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+			SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+			node1.setIterativeSearch(true);
+			node2.setIterativeSearch(true);
+			node3.setIterativeSearch(true);
+
+			assertEquals(node2.getPeer(), node1.searchByNumID(node2.getNumID()), "node 2 not found");
+			assertEquals(node3.getPeer(), node1.searchByNumID(node3.getNumID()), "node 3 not found");
+			assertEquals(node1.getPeer(), node2.searchByNumID(node1.getNumID()), "node 1 not found");
+			assertEquals(node3.getPeer(), node2.searchByNumID(node3.getNumID()), "node 3 not found");
+			assertEquals(node1.getPeer(), node3.searchByNumID(node1.getNumID()), "node 1 not found");
+			assertEquals(node2.getPeer(), node3.searchByNumID(node2.getNumID()), "node 2 not found");
+
+			// a missing target resolves to the closest node on the search path
+			assertEquals(node3.getPeer(), node1.searchByNumID(numID6), "closest node not found");
+
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Test if searches without a path report the same result and hops as searches with one
+	@Test
+	void testSearchByNumIDResult() {
+		try {
+			SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+			SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+			SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+
+			for (SkipNode node : new SkipNode[] { node1, node2, node3 }) {
+				for (int target : new int[] { numID1, numID2, numID3, numID6 }) {
+					SearchResult withPath = node.searchByNumIDResult(target, true);
+					SearchResult withoutPath = node.searchByNumIDResult(target, false);
+					assertNotNull(withPath.getPath(), "path not recorded");
+					assertNull(withoutPath.getPath(), "path recorded without being asked for");
+					assertEquals(withPath.getPath().get(withPath.getPath().size() - 1), withPath.getNode());
+					assertEquals(withPath.getNode(), withoutPath.getNode(), "results differ");
+					assertEquals(withPath.getHops(), withoutPath.getHops(), "hop counts differ");
+				}
+			}
+			// a node finds itself without leaving its own address
+			assertEquals(0, node2.searchByNumIDResult(numID1, false).getHops());
+
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Test if a batch of num ID searches finds the same results as single searches
+	@Test
+	void testSearchByNumIDs() {
+		try {
+			SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+			SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+			SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+			SkipNode node4 = new SkipNode(sameNameIDConfig1, node1.getAddress(), false);
+
+			int[] targets = { numID4, numID1, numID6, numID3, numID2, numID1 };
+			NodeInfo[] expected = { node4.getPeer(), node2.getPeer(), node4.getPeer(), node3.getPeer(),
+					node1.getPeer(), node2.getPeer() };
+			for (SkipNode node : new SkipNode[] { node1, node2, node3, node4 }) {
+				NodeInfo[] results = node.searchByNumIDs(targets);
+				assertArrayEquals(expected, results, "batch search from " + node.getNumID() + " failed");
+				for (int i = 0; i < targets.length; i++)
+					assertEquals(node.searchByNumID(targets[i]), results[i], "batch differs from single search");
+			}
+			assertEquals(0, node1.searchByNumIDs(new int[0]).length);
+
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Test if asynchronous calls complete with the results of blocking ones, and fail or time out as futures
+	@Test
+	void testAsyncClient() throws Exception {
+		SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+		SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+
+		AsyncSkipNodeClient client = new AsyncSkipNodeClient(node2.getRMI(node1.getAddress()));
+		List<CompletableFuture<NodeInfo>> searches = new ArrayList<>();
+		for (int target : new int[] { numID1, numID2, numID3 })
+			searches.add(client.searchByNumIDAsync(target));
+		CompletableFuture.allOf(searches.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+		assertEquals(node2.getPeer(), searches.get(0).get());
+		assertEquals(node1.getPeer(), searches.get(1).get());
+		assertEquals(node3.getPeer(), searches.get(2).get());
+		assertEquals(node3.getPeer(), client.searchByNameIDAsync(nameID3).get(10, TimeUnit.SECONDS));
+		assertEquals(numID2, client.getNumIDAsync().get(10, TimeUnit.SECONDS).intValue());
+		client.join();
+
+		// data nodes are inserted through a local node only
+		NodeInfo data = new NodeInfo(node3.getAddress(), 20, NameID.fromString("110"));
+		new AsyncLocalSkipNodeClient(node3).insertNodeAsync(data).get(10, TimeUnit.SECONDS);
+		assertEquals(data, node1.searchByNumID(20), "data node not found");
+
+		CompletableFuture<NodeInfo> never = new CompletableFuture<>();
+		ExecutionException timedOut = assertThrows(ExecutionException.class,
+				() -> AsyncSkipNodeClient.withTimeout(never, 50, TimeUnit.MILLISECONDS).get(10, TimeUnit.SECONDS));
+		assertTrue(timedOut.getCause() instanceof TimeoutException);
+		assertEquals(node1.getPeer(), AsyncSkipNodeClient
+				.withTimeout(client.getNodeAsync(numID2), 10, TimeUnit.SECONDS).get());
+
+		// giving up a bounded call interrupts the thread making it
+		CountDownLatch started = new CountDownLatch(1);
+		CompletableFuture<Boolean> interrupted = new CompletableFuture<>();
+		CompletableFuture<Void> sleeping = AsyncSkipNodeClient.callWithTimeout(() -> {
+			started.countDown();
+			try {
+				Thread.sleep(10000);
+				interrupted.complete(false);
+			} catch (InterruptedException e) {
+				interrupted.complete(true);
+			}
+			return null;
+		}, 10, TimeUnit.SECONDS);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		sleeping.cancel(true);
+		assertTrue(interrupted.get(5, TimeUnit.SECONDS), "the cancelled call was not interrupted");
+	}
+
+	// Test if stabilization repairs asymmetric and dangling links
+	@Test
+	void testStabilizer() throws RemoteException {
+		SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+		SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+		SkipNode node4 = new SkipNode(sameNameIDConfig1, node1.getAddress(), false);
+		SkipNode[] nodes = { node1, node2, node3, node4 };
+		// rounds are run by hand
+		for (SkipNode node : nodes) {
+			node.startStabilizer(60 * 60 * 1000);
+			node.stopStabilizer();
+		}
+		NodeInfo dead1 = new NodeInfo(node1.getAddress().replaceAll(":\\d+$", ":" + port++), 10,
+				NameID.fromString("101"));
+		NodeInfo dead2 = new NodeInfo(node1.getAddress().replaceAll(":\\d+$", ":" + port++), 0,
+				NameID.fromString("010"));
+
+		// numID 3 lost its left link, numID 1 skips numID 2
+		node3.setLeftNode(numID3, Const.ZERO_LEVEL, null, null);
+		node2.setRightNode(numID1, Const.ZERO_LEVEL, node3.getPeer(), null);
+		// numID 3 points to a crashed node at level 0, numID 2 at level 1
+		node3.setRightNode(numID3, Const.ZERO_LEVEL, dead1, null);
+		node1.setLeftNode(numID2, 1, dead2, null);
+
+		// repairs converge within a few rounds of every node
+		int rounds = 0;
+		int repairs;
+		do {
+			repairs = 0;
+			for (SkipNode node : nodes)
+				repairs += node.getStabilizer().runRound();
+		} while (repairs > 0 && ++rounds < 10);
+		assertEquals(0, repairs, "stabilization did not converge");
+
+		assertEquals(node1.getPeer(), node2.getRightNode(Const.ZERO_LEVEL, numID1), "skipping link not repaired");
+		assertEquals(node1.getPeer(), node3.getLeftNode(Const.ZERO_LEVEL, numID3), "asymmetric link not repaired");
+		assertEquals(node2.getPeer(), node1.getLeftNode(1, numID2), "dangling link not repaired");
+		assertEquals(node4.getPeer(), node3.getRightNode(Const.ZERO_LEVEL, numID3), "dangling link not repaired");
+		assertEquals(node3.getPeer(), node4.getLeftNode(Const.ZERO_LEVEL, numID4));
+		long asymmetric = 0, dangling = 0, checks = 0;
+		for (SkipNode node : nodes) {
+			asymmetric += node.getStabilizer().getAsymmetricRepairs();
+			dangling += node.getStabilizer().getDanglingRepairs();
+			checks += node.getStabilizer().getChecks();
+		}
+		assertTrue(asymmetric >= 2, "asymmetric repairs not counted");
+		// numID 3 walks back from its level 1 neighbor to replace the crashed node
+		assertEquals(1, node3.getStabilizer().getDanglingRepairs());
+		assertTrue(dangling >= 1 && checks > 0);
+
+		int[] order = { numID1, numID2, numID3, numID4 };
+		for (SkipNode node : nodes)
+			for (int i = 0; i < order.length; i++)
+				assertEquals(order[i], node.searchByNumID(order[i]).getNumID(), "node not found after repairs");
+	}
+
+	// Test if searches end before a node suspected to have failed instead of calling it
+	@Test
+	void testSearchAroundSuspectedNode() throws RemoteException {
+		SkipNode node1 = new SkipNode(config(1, "011"), Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config(2, "100"), node1.getAddress(), false);
+		SkipNode node3 = new SkipNode(config(3, "010"), node1.getAddress(), false);
+		SkipNode node4 = new SkipNode(config(4, "101"), node1.getAddress(), false);
+
+		// numID 3 is the neighbor of numID 1 above level zero, numID 2 at level zero
+		assertEquals(Arrays.asList(node1.getPeer(), node3.getPeer(), node4.getPeer()),
+				node1.searchByNumIDResult(4, true).getPath());
+		FailureDetector detector = node1.startFailureDetector(0);
+		assertSame(detector, node1.getFailureDetector());
+		assertEquals(node4.getPeer(), node1.searchByNumID(4), "monitored stubs changed the result");
+
+		detector.onFailure(node3.getAddress());
+		assertTrue(node1.isSuspected(node3.getAddress()));
+		assertFalse(node2.isSuspected(node1.getAddress()));
+		// the search drops to level zero instead of going through numID 3
+		List<NodeInfo> path = node1.searchByNumIDResult(4, true).getPath();
+		assertEquals(node2.getPeer(), path.get(1), "the search went through a suspected node");
+		assertEquals(node4.getPeer(), path.get(path.size() - 1));
+		assertEquals(node4.getPeer(), node1.searchByNumID(4));
+	}
+
+	// Test if a suspected neighbor at level zero is still forwarded to, rather than
+	// ending the search at the wrong node
+	@Test
+	void testSearchThroughSuspectedLevelZeroNeighbor() throws RemoteException {
+		SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+		SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+
+		// the only route from numID 1 to numID 3 goes through numID 2 at level zero
+		FailureDetector detector = node2.startFailureDetector(0);
+		detector.onFailure(node1.getAddress());
+		assertTrue(node2.isSuspected(node1.getAddress()));
+		assertEquals(node3.getPeer(), node2.searchByNumID(numID3), "the search ended before a suspected node");
+		assertEquals(node1.getPeer(), node3.searchByNumID(numID2));
+	}
+
 	// Test if name ID search finds exact results
 	@Test
 	void testSearchByNameIDExact() {
@@ -166,22 +408,22 @@ class SkipNodeTest {
 			SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
 			SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
 
-			NodeInfo res1 = node1.searchByNameID("111");
+			NodeInfo res1 = node1.searchByNameID(NameID.fromString("111"));
 			assertEquals(node3.getPeer(), res1, "incorrect node found");
 			// check if node finds itself
-			NodeInfo res2 = node3.searchByNameID("111");
+			NodeInfo res2 = node3.searchByNameID(NameID.fromString("111"));
 			assertEquals(node3.getPeer(), res2, "node could not find itself");
 
-			NodeInfo res3 = node2.searchByNameID("000");
+			NodeInfo res3 = node2.searchByNameID(NameID.fromString("000"));
 			assertEquals(node1.getPeer(), res3, "incorrect node found");
 			// check if node finds itself
-			NodeInfo res4 = node1.searchByNameID("000");
+			NodeInfo res4 = node1.searchByNameID(NameID.fromString("000"));
 			assertEquals(node1.getPeer(), res4, "node could not find itself");
 
-			NodeInfo res5 = node3.searchByNameID("010");
+			NodeInfo res5 = node3.searchByNameID(NameID.fromString("010"));
 			assertEquals(node2.getPeer(), res5, "incorrect node found");
 			// check if node finds itself
-			NodeInfo res6 = node2.searchByNameID("010");
+			NodeInfo res6 = node2.searchByNameID(NameID.fromString("010"));
 			assertEquals(node2.getPeer(), res6, "node could not find itself");
 
 		} catch (RemoteException e) {
@@ -225,4 +467,152 @@ class SkipNodeTest {
 		}
 	}
 
+	// Test if a search reaching a node that is stuck in its insertion fails in time in both directions
+	@Test
+	void testInsertSearchOnStuckNode() throws Exception {
+		CountDownLatch stuck = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true) {
+			@Override
+			public RMIInterface getRMI(String adrs) {
+				RMIInterface stub = super.getRMI(adrs);
+				if (stub == null || release.getCount() == 0)
+					return stub;
+				// the insertion of the data node stops at its first ladder search
+				return (RMIInterface) Proxy.newProxyInstance(RMIInterface.class.getClassLoader(),
+						new Class<?>[] { RMIInterface.class }, (proxy, method, args) -> {
+							if (method.getName().equals("insertSearch")) {
+								stuck.countDown();
+								release.await();
+							}
+							try {
+								return method.invoke(stub, args);
+							} catch (InvocationTargetException e) {
+								throw e.getCause();
+							}
+						});
+			}
+		};
+		new SkipNode(config1, node1.getAddress(), false);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> insertion = executor.submit(() -> {
+				node1.insertDataNode(numID4, nameID4);
+				return null;
+			});
+			assertTrue(stuck.await(10, TimeUnit.SECONDS));
+			for (int direction : new int[] { Const.LEFT, Const.RIGHT }) {
+				Future<?> search = executor.submit(() -> assertThrows(RemoteException.class,
+						() -> node1.insertSearch(Const.ZERO_LEVEL, direction, numID4, nameID2)));
+				search.get(5, TimeUnit.SECONDS);
+			}
+			release.countDown();
+			insertion.get(10, TimeUnit.SECONDS);
+		} finally {
+			release.countDown();
+			executor.shutdown();
+		}
+	}
+
+	// Test if a batch that fails halfway sets back the neighbors of the remote nodes it linked
+	@Test
+	void testInsertNodesRollback() throws RemoteException {
+		AtomicBoolean failing = new AtomicBoolean();
+		SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config1, node1.getAddress(), false) {
+			@Override
+			public RMIInterface getRMI(String adrs) {
+				RMIInterface stub = super.getRMI(adrs);
+				if (!failing.get() || stub == null)
+					return stub;
+				// the searches of the upper levels fail once level 0 is linked
+				return (RMIInterface) Proxy.newProxyInstance(RMIInterface.class.getClassLoader(),
+						new Class<?>[] { RMIInterface.class }, (proxy, method, args) -> {
+							if (method.getName().equals("insertSearch"))
+								throw new RemoteException("unreachable");
+							try {
+								return method.invoke(stub, args);
+							} catch (InvocationTargetException e) {
+								throw e.getCause();
+							}
+						});
+			}
+		};
+
+		List<NodeInfo> batch = new ArrayList<>();
+		batch.add(new NodeInfo(node2.getAddress(), 20, NameID.fromString("110")));
+		batch.add(new NodeInfo(node2.getAddress(), 10, NameID.fromString("111")));
+		failing.set(true);
+		assertArrayEquals(new boolean[] { false, false }, node2.insertNodes(batch));
+		failing.set(false);
+
+		assertNull(node1.getRightNode(Const.ZERO_LEVEL, numID2), "remote node still linked to the failed run");
+		assertEquals(numID2, node2.searchByNumID(10).getNumID());
+		assertNull(node2.getNode(10));
+		assertNull(node2.getNode(20));
+	}
+
+	// Test if a batch of data nodes is inserted in order and linked at every level
+	@Test
+	void testInsertNodes() {
+		try {
+			SkipNode node1 = new SkipNode(initialConfig, Const.DUMMY_INTRODUCER, true);
+			SkipNode node2 = new SkipNode(config1, node1.getAddress(), false);
+			SkipNode node3 = new SkipNode(config2, node1.getAddress(), false);
+
+			List<NodeInfo> batch = new ArrayList<>();
+			batch.add(new NodeInfo(node1.getAddress(), 20, NameID.fromString("110")));
+			batch.add(new NodeInfo(node1.getAddress(), 5, NameID.fromString("001")));
+			batch.add(new NodeInfo(node1.getAddress(), 40, NameID.fromString("011")));
+			batch.add(new NodeInfo(node1.getAddress(), 10, NameID.fromString("111")));
+			// repeated in the batch
+			batch.add(new NodeInfo(node1.getAddress(), 5, NameID.fromString("000")));
+			// already in the skip graph
+			batch.add(new NodeInfo(node1.getAddress(), numID3, NameID.fromString("000")));
+
+			boolean[] res = node1.insertNodes(batch);
+			assertArrayEquals(new boolean[] { true, true, true, true, false, false }, res);
+
+			for (int i = 0; i < 4; i++)
+				assertEquals(batch.get(i), node2.searchByNumID(batch.get(i).getNumID()), "data node not found");
+
+			Map<String, SkipNode> nodes = new HashMap<>();
+			nodes.put(node1.getAddress(), node1);
+			nodes.put(node2.getAddress(), node2);
+			nodes.put(node3.getAddress(), node3);
+			int[] expected = { numID1, numID2, numID3, 5, 10, 20, 40 };
+			List<Integer> order = new ArrayList<>();
+			NodeInfo cur = node2.getPeer();
+			while (cur != null) {
+				order.add(cur.getNumID());
+				cur = nodes.get(cur.getAddress()).getRightNode(Const.ZERO_LEVEL, cur.getNumID());
+			}
+			assertEquals(expected.length, order.size(), "level 0 has the wrong size");
+			for (int i = 0; i < expected.length; i++)
+				assertEquals(expected[i], order.get(i).intValue(), "level 0 is out of order");
+
+			// every link is symmetric and joins nodes sharing the prefix of its level
+			for (int level = 0; level <= maxLevels; level++) {
+				for (int num : expected) {
+					SkipNode owner = num == numID1 ? node2 : num == numID3 ? node3 : node1;
+					NodeInfo self = owner.getNode(num);
+					NodeInfo right = owner.getRightNode(level, num);
+					if (right == null)
+						continue;
+					assertTrue(right.getNumID() > num, "right neighbor is not to the right");
+					assertTrue(Util.commonBits(self.getNameID(), right.getNameID()) >= level,
+							"neighbors do not share the prefix of their level");
+					NodeInfo back = nodes.get(right.getAddress()).getLeftNode(level, right.getNumID());
+					assertEquals(self, back, "link is not symmetric");
+				}
+			}
+
+		} catch (RemoteException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private NodeConfig config(int numID, String nameID) {
+		return new NodeConfig(maxLevels, port++, numID, NameID.fromString(nameID));
+	}
 }
@@ -0,0 +1,128 @@
+package skipGraph;
+
+import org.junit.jupiter.api.Test;
+import transport.Transport;
+
+import java.rmi.Remote;
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.rmi.ServerException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StubCacheTest {
+
+	private static final String ADRS = "127.0.0.1:7960";
+
+	// Test if looked up stubs are cached, and a call failing in the transport evicts its stub
+	@Test
+	void testEvictOnRemoteException() throws RemoteException {
+		CountingTransport transport = new CountingTransport(false);
+		StubCache cache = new StubCache(transport);
+		Echo stub = (Echo) cache.lookup(ADRS);
+		assertEquals(1, stub.echo(1));
+		assertSame(stub, cache.lookup(ADRS));
+		assertEquals(1, transport.lookups.get());
+
+		// only failures of the transport evict the stub, not those of the node
+		assertThrows(IllegalArgumentException.class, () -> stub.echo(-1));
+		assertThrows(ServerException.class, () -> stub.echo(0));
+		assertSame(stub, cache.lookup(ADRS));
+		transport.node.failing = true;
+		assertThrows(RemoteException.class, () -> stub.echo(1));
+		assertEquals(0, cache.size());
+
+		transport.node.failing = false;
+		assertNotSame(stub, cache.lookup(ADRS));
+		assertEquals(2, transport.lookups.get());
+	}
+
+	// Test if a stub failing after it was replaced keeps its replacement cached
+	@Test
+	void testReplacedStubFailure() throws RemoteException {
+		CountingTransport transport = new CountingTransport(false);
+		StubCache cache = new StubCache(transport);
+		Echo replaced = (Echo) cache.lookup(ADRS);
+		cache.evict(ADRS);
+		Echo replacement = (Echo) cache.lookup(ADRS);
+		assertNotSame(replaced, replacement);
+
+		transport.node.failing = true;
+		assertThrows(RemoteException.class, () -> replaced.echo(1));
+		assertSame(replacement, cache.lookup(ADRS), "a failing replaced stub evicted its replacement");
+		assertEquals(2, transport.lookups.get());
+	}
+
+	// Test if hits, misses and evictions are counted, and invalid addresses not looked up
+	@Test
+	void testCounters() throws RemoteException {
+		CountingTransport transport = new CountingTransport(false);
+		StubCache cache = new StubCache(transport, 1, 0);
+		cache.lookup(ADRS);
+		cache.lookup(ADRS);
+		cache.lookup("127.0.0.1:7961");
+		assertNull(cache.lookup("not an address"));
+
+		assertEquals(1, cache.size());
+		assertEquals(1, cache.getHits());
+		assertEquals(3, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2, transport.lookups.get());
+	}
+
+	// Test if in-process transports are asked on every lookup
+	@Test
+	void testInProcess() {
+		CountingTransport transport = new CountingTransport(true);
+		StubCache cache = new StubCache(transport);
+		assertSame(transport.node, cache.lookup(ADRS));
+		assertSame(transport.node, cache.lookup(ADRS));
+		assertEquals(0, cache.size());
+		assertEquals(2, transport.lookups.get());
+	}
+
+	interface Echo extends Remote {
+		int echo(int value) throws RemoteException;
+	}
+
+	private static class EchoNode implements Echo {
+		private volatile boolean failing;
+
+		@Override
+		public int echo(int value) throws RemoteException {
+			if (failing)
+				throw new ConnectException("unreachable");
+			if (value == 0)
+				throw new ServerException("rejected by the node");
+			if (value < 0)
+				throw new IllegalArgumentException("negative value");
+			return value;
+		}
+	}
+
+	private static class CountingTransport implements Transport {
+		private final EchoNode node = new EchoNode();
+		private final AtomicInteger lookups = new AtomicInteger();
+		private final boolean inProcess;
+
+		private CountingTransport(boolean inProcess) {
+			this.inProcess = inProcess;
+		}
+
+		@Override
+		public void export(Remote node, int port) {
+		}
+
+		@Override
+		public Remote lookup(String adrs) {
+			lookups.incrementAndGet();
+			return node;
+		}
+
+		@Override
+		public boolean isInProcess() {
+			return inProcess;
+		}
+	}
+}
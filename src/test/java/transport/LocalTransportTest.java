@@ -0,0 +1,71 @@
+package transport;
+
+import org.junit.jupiter.api.Test;
+import skipGraph.NameID;
+import skipGraph.NodeConfig;
+import skipGraph.NodeInfo;
+import skipGraph.RMIInterface;
+import skipGraph.SkipNode;
+import util.Const;
+
+import java.rmi.RemoteException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalTransportTest {
+
+	private static int port = 7700;
+	private int maxLevels = 3;
+
+	// Test if in-process nodes insert themselves and find each other, with and without copies
+	@Test
+	void testSearch() throws RemoteException {
+		for (boolean copyOnCall : new boolean[] { true, false }) {
+			LocalTransport transport = new LocalTransport(copyOnCall);
+			SkipNode node1 = new SkipNode(config(transport, 2, "001"), Const.DUMMY_INTRODUCER, true);
+			SkipNode node2 = new SkipNode(config(transport, 1, "011"), node1.getAddress(), false);
+			SkipNode node3 = new SkipNode(config(transport, 3, "100"), node1.getAddress(), false);
+
+			for (SkipNode node : new SkipNode[] { node1, node2, node3 }) {
+				assertEquals(node2.getPeer(), node.searchByNumID(1), "node 2 not found");
+				assertEquals(node1.getPeer(), node.searchByNumID(2), "node 1 not found");
+				assertEquals(node3.getPeer(), node.searchByNumID(3), "node 3 not found");
+				assertEquals(node3.getPeer(), node.searchByNameID(NameID.fromString("100")), "node 3 not found");
+			}
+		}
+	}
+
+	// Test if copy on call passes copies while direct lookups share objects
+	@Test
+	void testCopyOnCall() throws RemoteException {
+		LocalTransport direct = new LocalTransport(false);
+		LocalTransport copying = new LocalTransport(true);
+		SkipNode node = new SkipNode(config(direct, 5, "110"), Const.DUMMY_INTRODUCER, true);
+
+		assertSame(node, direct.lookup(node.getAddress()));
+		assertSame(node.getPeer(), ((RMIInterface) direct.lookup(node.getAddress())).getNode(5));
+
+		// the nodes exported on any local transport are visible to all of them
+		RMIInterface copy = (RMIInterface) copying.lookup(node.getAddress());
+		NodeInfo peer = copy.getNode(5);
+		assertEquals(node.getPeer(), peer);
+		assertNotSame(node.getPeer(), peer);
+		assertEquals(5, copy.getNumID());
+	}
+
+	// Test if ports are taken once and unknown addresses fail with a RemoteException
+	@Test
+	void testExportAndLookupFailures() throws RemoteException {
+		LocalTransport transport = new LocalTransport(false);
+		SkipNode node = new SkipNode(config(transport, 7, "010"), Const.DUMMY_INTRODUCER, true);
+		int taken = Integer.parseInt(node.getAddress().substring(node.getAddress().lastIndexOf(':') + 1));
+		assertThrows(RemoteException.class, () -> transport.export(node, taken));
+		assertThrows(RemoteException.class, () -> transport.lookup("127.0.0.1:" + port++));
+		assertThrows(RemoteException.class, () -> transport.lookup("not an address"));
+		assertTrue(transport.isInProcess());
+	}
+
+	private NodeConfig config(Transport transport, int numID, String nameID) {
+		return new NodeConfig(maxLevels, port++, numID, NameID.fromString(nameID), transport);
+	}
+}
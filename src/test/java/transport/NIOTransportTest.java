@@ -0,0 +1,200 @@
+package transport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import skipGraph.NameID;
+import skipGraph.NodeConfig;
+import skipGraph.NodeInfo;
+import skipGraph.RMIInterface;
+import skipGraph.SkipNode;
+import util.Const;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NIOTransportTest {
+
+	private static int port = 7600;
+	private int maxLevels = 3;
+	private NIOTransport transport;
+
+	@BeforeEach
+	void init() throws IOException {
+		transport = new NIOTransport(5000);
+	}
+
+	@AfterEach
+	void close() throws IOException {
+		transport.close();
+	}
+
+	// Test if nodes exported on the NIO transport insert themselves and find each other
+	@Test
+	void testSearchOverNIO() throws RemoteException {
+		SkipNode node1 = new SkipNode(config(2, "001"), Const.DUMMY_INTRODUCER, true);
+		SkipNode node2 = new SkipNode(config(1, "011"), node1.getAddress(), false);
+		SkipNode node3 = new SkipNode(config(3, "100"), node1.getAddress(), false);
+
+		for (SkipNode node : new SkipNode[] { node1, node2, node3 }) {
+			assertEquals(node2.getPeer(), node.searchByNumID(1), "node 2 not found");
+			assertEquals(node1.getPeer(), node.searchByNumID(2), "node 1 not found");
+			assertEquals(node3.getPeer(), node.searchByNumID(3), "node 3 not found");
+			assertEquals(node3.getPeer(), node.searchByNameID(NameID.fromString("100")), "node 3 not found");
+		}
+		assertArrayEquals(new NodeInfo[] { node3.getPeer(), node2.getPeer() },
+				node1.searchByNumIDs(new int[] { 3, 1 }));
+	}
+
+	// Test if a looked up node answers calls, including failing ones, like the node itself
+	@Test
+	void testRemoteCalls() throws RemoteException {
+		SkipNode node = new SkipNode(config(5, "110"), Const.DUMMY_INTRODUCER, true);
+		RMIInterface remote = (RMIInterface) transport.lookup(node.getAddress());
+
+		assertEquals(5, remote.getNumID());
+		assertEquals(node.getAddress(), remote.getAddress());
+		assertEquals(NameID.fromString("110"), remote.getNameID());
+		assertEquals(node.getPeer(), remote.getNode(5));
+		assertNull(remote.getLeftNode(0, 5));
+		assertEquals(node.getPeer(), remote.getNeighbors(5, maxLevels).getNode());
+		assertNull(remote.getNeighbors(6, maxLevels).getNode());
+		// calls from several threads share the connection
+		Thread[] threads = new Thread[8];
+		int[] failures = new int[1];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(() -> {
+				try {
+					for (int j = 0; j < 50; j++) {
+						if (remote.getNumID() != 5)
+							failures[0]++;
+					}
+				} catch (RemoteException e) {
+					failures[0]++;
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			try {
+				thread.join();
+			} catch (InterruptedException e) {
+				fail(e);
+			}
+		}
+		assertEquals(0, failures[0], "concurrent calls failed");
+	}
+
+	// Test if reaching a port nothing is exported on fails with a RemoteException
+	@Test
+	void testLookupFailure() {
+		assertThrows(RemoteException.class, () -> transport.lookup("127.0.0.1:" + port++));
+		assertThrows(RemoteException.class, () -> transport.lookup("not an address"));
+	}
+
+	// Test if a connection that is not established in time fails without holding up calls to other nodes
+	@Test
+	void testUnreachableConnect() throws Exception {
+		SkipNode node = new SkipNode(config(1, "001"), Const.DUMMY_INTRODUCER, true);
+		NIOTransport client = new NIOTransport(1000);
+		try {
+			CompletableFuture<Void> unreachable = CompletableFuture.runAsync(() ->
+					assertThrows(RemoteException.class, () -> ((RMIInterface) client.lookup("10.255.255.1:" + port)).getNumID()));
+			assertEquals(1, ((RMIInterface) client.lookup(node.getAddress())).getNumID());
+			unreachable.get(5, TimeUnit.SECONDS);
+		} finally {
+			client.close();
+		}
+	}
+
+	// Test if requests beyond the bound of the workers wait for a free worker instead of failing
+	@Test
+	void testBoundedWorkers() throws Exception {
+		NIOTransport bounded = new NIOTransport(5000, 1);
+		ExecutorService callers = Executors.newFixedThreadPool(4);
+		try {
+			int slowPort = port++;
+			bounded.export(new SlowNode(), slowPort);
+			Slow slow = (Slow) bounded.lookup("127.0.0.1:" + slowPort);
+			long start = System.currentTimeMillis();
+			List<Future<Integer>> calls = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				int value = i;
+				calls.add(callers.submit(() -> slow.echoSlowly(value)));
+			}
+			for (int i = 0; i < 4; i++)
+				assertEquals(i, calls.get(i).get(10, TimeUnit.SECONDS).intValue());
+			assertTrue(System.currentTimeMillis() - start >= 4 * 100, "requests were served at once");
+		} finally {
+			callers.shutdown();
+			bounded.close();
+		}
+	}
+
+	interface Slow extends Remote {
+		int echoSlowly(int value) throws RemoteException;
+	}
+
+	private static class SlowNode implements Slow {
+		@Override
+		public int echoSlowly(int value) {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return value;
+		}
+	}
+
+	// Test if only the classes of nodes and their messages are deserialized from peers
+	@Test
+	void testCodecFilter() throws Exception {
+		List<Object> values = new ArrayList<>();
+		values.add(KeyPairGenerator.getInstance("RSA").generateKeyPair().getPublic());
+		values.add(new RemoteException("failed"));
+		values.add(new NodeInfo[] { new NodeInfo("127.0.0.1:7600", 1, NameID.fromString("001")) });
+		assertEquals(values.get(0), ((List<?>) roundTrip(values)).get(0));
+
+		assertThrows(InvalidClassException.class, () -> roundTrip(new Gadget()));
+		assertThrows(InvalidClassException.class, () -> roundTrip(new Gadget[0]));
+		InvocationHandler handler = (InvocationHandler & Serializable) (proxy, method, args) -> null;
+		assertThrows(InvalidClassException.class, () -> roundTrip(
+				Proxy.newProxyInstance(Gadget.class.getClassLoader(), new Class<?>[] { Runnable.class }, handler)));
+		assertTrue(Codec.isSerializable("[[I"));
+		assertFalse(Codec.isSerializable("java.lang.invoke.SerializedLambda"));
+	}
+
+	private static Object roundTrip(Object value) throws IOException, ClassNotFoundException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		Codec.write(new DataOutputStream(bytes), value);
+		return Codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+	}
+
+	private static class Gadget implements Serializable {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private NodeConfig config(int numID, String nameID) {
+		return new NodeConfig(maxLevels, port++, numID, NameID.fromString(nameID), transport);
+	}
+}
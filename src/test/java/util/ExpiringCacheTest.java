@@ -0,0 +1,81 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpiringCacheTest {
+
+	// Test if a full cache evicts its least recently used entry
+	@Test
+	void testLeastRecentlyUsedEviction() {
+		ExpiringCache<Integer, String> cache = new ExpiringCache<>(2, 0);
+		cache.put(1, "a");
+		cache.put(2, "b");
+		assertEquals("a", cache.get(1));
+		cache.put(3, "c");
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertNull(cache.get(2), "the least recently used entry was kept");
+		assertEquals("a", cache.get(1));
+		assertEquals("c", cache.get(3));
+	}
+
+	// Test if entries expire after their time to live, and never without one
+	@Test
+	void testExpiry() throws InterruptedException {
+		ExpiringCache<Integer, String> expiring = new ExpiringCache<>(10, 50);
+		ExpiringCache<Integer, String> lasting = new ExpiringCache<>(10, 0);
+		expiring.put(1, "a");
+		lasting.put(1, "a");
+		assertEquals("a", expiring.get(1));
+		Thread.sleep(100);
+
+		assertNull(expiring.get(1), "an expired entry was returned");
+		assertEquals(0, expiring.size());
+		assertEquals(1, expiring.getEvictions());
+		assertEquals("a", lasting.get(1));
+		assertEquals(0, lasting.getEvictions());
+
+		// a new value lives for the whole time to live again
+		expiring.put(1, "b");
+		assertEquals("b", expiring.get(1));
+	}
+
+	// Test if evicting a key for a value keeps a value that replaced it
+	@Test
+	void testEvictValue() {
+		ExpiringCache<Integer, String> cache = new ExpiringCache<>(10, 0);
+		String replaced = new String("a");
+		String replacement = new String("a");
+		cache.put(1, replaced);
+		cache.put(1, replacement);
+
+		assertFalse(cache.evict(1, replaced), "an equal but replaced value evicted its replacement");
+		assertSame(replacement, cache.get(1));
+		assertTrue(cache.evict(1, replacement));
+		assertNull(cache.get(1));
+		assertFalse(cache.evict(1));
+		assertEquals(1, cache.getEvictions());
+	}
+
+	// Test if hits, misses and evictions are counted
+	@Test
+	void testCounters() {
+		ExpiringCache<Integer, String> cache = new ExpiringCache<>(10, 0);
+		assertNull(cache.get(1));
+		cache.put(1, "a");
+		cache.get(1);
+		cache.get(1);
+		assertTrue(cache.evict(1));
+		assertNull(cache.get(1));
+
+		assertEquals(2, cache.getHits());
+		assertEquals(2, cache.getMisses());
+		assertEquals(1, cache.getEvictions());
+		cache.put(2, "b");
+		cache.clear();
+		assertEquals(0, cache.size());
+	}
+}